@@ -1,5 +1,7 @@
 package io.sendur;
 
+import io.sendur.configurations.LeadArchiveConfigurationProperties;
+import io.sendur.configurations.LeaderElectionConfigurationProperties;
 import io.sendur.configurations.N8NConfigurationProperties;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
@@ -8,9 +10,12 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
-@EnableConfigurationProperties(N8NConfigurationProperties.class)
+@EnableScheduling
+@EnableConfigurationProperties({N8NConfigurationProperties.class, LeaderElectionConfigurationProperties.class,
+		LeadArchiveConfigurationProperties.class})
 public class SiteApplication {
 	private static final Logger LOGGER = LoggerFactory.getLogger(SiteApplication.class);
 
@@ -0,0 +1,13 @@
+package io.sendur.configurations;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "lead-archive")
+public class LeadArchiveConfigurationProperties {
+    private long contactedAgeDays = 90;
+    private int batchSize = 500;
+}
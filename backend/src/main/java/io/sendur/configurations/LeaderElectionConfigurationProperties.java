@@ -0,0 +1,17 @@
+package io.sendur.configurations;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.UUID;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "leader-election")
+public class LeaderElectionConfigurationProperties {
+    private String leaseName = "sendur-leader";
+    private String instanceId = UUID.randomUUID().toString();
+    private long leaseDurationMillis = 30_000;
+    private long renewIntervalMillis = 10_000;
+}
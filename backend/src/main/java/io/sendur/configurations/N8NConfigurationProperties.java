@@ -13,4 +13,38 @@ public class N8NConfigurationProperties {
     private long timeout;
     private String host;
     private int port;
-}
\ No newline at end of file
+    private String webhookSecret;
+    private long signatureToleranceSeconds = 300;
+    private int maxCallbackBodyBytes = 1_048_576;
+    private Limiter limiter = new Limiter();
+    private Retry retry = new Retry();
+
+    /**
+     * Adaptive (AIMD) limit on in-flight n8n webhook calls. See {@link io.sendur.services.N8NConcurrencyLimiter}.
+     */
+    @Getter
+    @Setter
+    public static class Limiter {
+        private int initialLimit = 4;
+        private int minLimit = 1;
+        private int maxLimit = 32;
+        private int maxQueued = 64;
+        private long queueTimeoutMillis = 30_000;
+        private long latencyThresholdMillis = 30_000;
+        private double backoffRatio = 0.9;
+    }
+
+    /**
+     * Retries of n8n webhook calls that never reached n8n. 5xx responses and timeouts are not retried since the
+     * webhook is not idempotent. See {@link io.sendur.services.N8NRetryBudget}.
+     */
+    @Getter
+    @Setter
+    public static class Retry {
+        private int maxAttempts = 3;
+        private long baseDelayMillis = 250;
+        private long maxDelayMillis = 5_000;
+        private double budgetRatio = 0.2;
+        private int maxBudget = 10;
+    }
+}
@@ -0,0 +1,220 @@
+package io.sendur.configurations;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import io.sendur.services.N8NSignatureReplayService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Locale;
+
+/**
+ * Authenticates n8n callbacks with an HMAC signature instead of a login session. Every request must carry:
+ * <ul>
+ *     <li>{@code X-Sendur-Timestamp}: epoch seconds when the request was signed</li>
+ *     <li>{@code X-Sendur-Signature}: hex encoded HMAC-SHA256, keyed with {@code n8n.webhook-secret}, of
+ *         {@code timestamp + "." + method + "." + path + "." + body}</li>
+ * </ul>
+ * Requests signed outside the {@code n8n.signature-tolerance-seconds} window, or whose signature was already seen
+ * inside it by any instance, are rejected as replays, see {@link N8NSignatureReplayService}. Bodies larger than
+ * {@code n8n.max-callback-body-bytes} are rejected with a 413 before they are read, so unauthenticated callers
+ * can't make the filter buffer arbitrary amounts of data.
+ */
+public class N8NSignatureAuthenticationFilter extends OncePerRequestFilter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(N8NSignatureAuthenticationFilter.class);
+
+    public static final String TIMESTAMP_HEADER = "X-Sendur-Timestamp";
+    public static final String SIGNATURE_HEADER = "X-Sendur-Signature";
+    public static final String ROLE_N8N = "N8N";
+
+    private static final String HMAC_SHA256 = "HmacSHA256";
+    private static final char SEPARATOR = '.';
+
+    /**
+     * The same authenticated principal is shared by every signed request, nothing is looked up per request.
+     */
+    private static final Authentication N8N_AUTHENTICATION = UsernamePasswordAuthenticationToken.authenticated(
+            "n8n", null, AuthorityUtils.createAuthorityList("ROLE_" + ROLE_N8N));
+
+    private final SecretKeySpec key;
+    private final long toleranceSeconds;
+    private final int maxBodyBytes;
+    private final ThreadLocal<Mac> macs;
+    private final N8NSignatureReplayService replayService;
+
+    public N8NSignatureAuthenticationFilter(N8NConfigurationProperties n8NConfigurationProperties,
+                                            N8NSignatureReplayService replayService) {
+        String secret = n8NConfigurationProperties.getWebhookSecret();
+        if (secret == null || secret.isBlank()) {
+            LOGGER.warn("n8n.webhook-secret is not set, all n8n callbacks will be rejected");
+            this.key = null;
+        } else {
+            this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), HMAC_SHA256);
+        }
+        this.toleranceSeconds = n8NConfigurationProperties.getSignatureToleranceSeconds();
+        this.maxBodyBytes = n8NConfigurationProperties.getMaxCallbackBodyBytes();
+        this.replayService = replayService;
+        this.macs = ThreadLocal.withInitial(this::newMac);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String timestamp = request.getHeader(TIMESTAMP_HEADER);
+        String signature = request.getHeader(SIGNATURE_HEADER);
+        if (key == null || timestamp == null || signature == null) {
+            unauthorized(request, response, "missing signature");
+            return;
+        }
+
+        final long now = Instant.now().getEpochSecond();
+        final long signedAt;
+        try {
+            signedAt = Long.parseLong(timestamp);
+        } catch (NumberFormatException e) {
+            unauthorized(request, response, "malformed timestamp");
+            return;
+        }
+        if (Math.abs(now - signedAt) > toleranceSeconds) {
+            unauthorized(request, response, "timestamp outside replay window");
+            return;
+        }
+
+        if (request.getContentLengthLong() > maxBodyBytes) {
+            payloadTooLarge(request, response);
+            return;
+        }
+        // the content length may be missing, e.g. for chunked bodies, so the read itself is bounded too
+        byte[] body = request.getInputStream().readNBytes(maxBodyBytes + 1);
+        if (body.length > maxBodyBytes) {
+            payloadTooLarge(request, response);
+            return;
+        }
+        byte[] expected = sign(timestamp, request, body);
+        byte[] actual;
+        try {
+            actual = HexFormat.of().parseHex(signature);
+        } catch (IllegalArgumentException e) {
+            unauthorized(request, response, "malformed signature");
+            return;
+        }
+        if (!MessageDigest.isEqual(expected, actual)) {
+            unauthorized(request, response, "signature mismatch");
+            return;
+        }
+        if (!replayService.markSeen(signature.toLowerCase(Locale.ROOT), Instant.ofEpochSecond(signedAt))) {
+            unauthorized(request, response, "replayed signature");
+            return;
+        }
+
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(N8N_AUTHENTICATION);
+        SecurityContextHolder.setContext(context);
+        try {
+            filterChain.doFilter(new CachedBodyRequest(request, body), response);
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    private byte[] sign(String timestamp, HttpServletRequest request, byte[] body) {
+        String path = request.getQueryString() == null
+                ? request.getRequestURI()
+                : request.getRequestURI() + "?" + request.getQueryString();
+        Mac mac = macs.get();
+        mac.update((timestamp + SEPARATOR + request.getMethod() + SEPARATOR + path + SEPARATOR)
+                .getBytes(StandardCharsets.UTF_8));
+        return mac.doFinal(body);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac mac = Mac.getInstance(HMAC_SHA256);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to initialize " + HMAC_SHA256, e);
+        }
+    }
+
+    private static void unauthorized(HttpServletRequest request, HttpServletResponse response, String reason) {
+        LOGGER.warn("Rejected n8n callback {} {}: {}", request.getMethod(), request.getRequestURI(), reason);
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+    }
+
+    private void payloadTooLarge(HttpServletRequest request, HttpServletResponse response) {
+        LOGGER.warn("Rejected n8n callback {} {}: body larger than {} bytes", request.getMethod(),
+                request.getRequestURI(), maxBodyBytes);
+        response.setStatus(HttpServletResponse.SC_REQUEST_ENTITY_TOO_LARGE);
+    }
+
+    /**
+     * The body has to be read to verify the signature, this wrapper lets the controller read it again.
+     */
+    private static class CachedBodyRequest extends HttpServletRequestWrapper {
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream inputStream = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return inputStream.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public int read() {
+                    return inputStream.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return inputStream.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            return new BufferedReader(new InputStreamReader(getInputStream(), StandardCharsets.UTF_8));
+        }
+    }
+}
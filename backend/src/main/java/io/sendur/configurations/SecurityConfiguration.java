@@ -1,14 +1,21 @@
 package io.sendur.configurations;
 
 import io.sendur.models.CognitoLogoutHandler;
+import io.sendur.services.N8NSignatureReplayService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.access.intercept.AuthorizationFilter;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.context.RequestAttributeSecurityContextRepository;
 import org.springframework.web.servlet.config.annotation.CorsRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -16,7 +23,44 @@ import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 @EnableWebSecurity
 public class SecurityConfiguration {
 
+    /**
+     * Endpoints called by n8n workflows rather than by a logged-in admin.
+     */
+    public static final String[] N8N_CALLBACK_PATHS = {
+            "/sendur/api/leads/receive-scheduled-leads",
+            "/sendur/api/leads/no-email-scheduler",
+            "/sendur/api/leads/update-emails"
+    };
+
+    /**
+     * Machine traffic from n8n is authenticated per request with an HMAC signature, see
+     * {@link N8NSignatureAuthenticationFilter}. This chain never creates or reads an HTTP session and never
+     * redirects to the login page, an unsigned request simply gets a 401.
+     *
+     * @param http {@link HttpSecurity}
+     * @param n8NConfigurationProperties {@link N8NConfigurationProperties}
+     * @param n8NSignatureReplayService {@link N8NSignatureReplayService}
+     *
+     * @return {@link SecurityFilterChain}
+     */
+    @Bean
+    @Order(1)
+    public SecurityFilterChain n8nFilterChain(HttpSecurity http, N8NConfigurationProperties n8NConfigurationProperties,
+                                              N8NSignatureReplayService n8NSignatureReplayService) throws Exception {
+        http.securityMatcher(N8N_CALLBACK_PATHS)
+                .csrf(AbstractHttpConfigurer::disable)
+                .requestCache(AbstractHttpConfigurer::disable)
+                .anonymous(AbstractHttpConfigurer::disable)
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .securityContext(context -> context.securityContextRepository(new RequestAttributeSecurityContextRepository()))
+                .addFilterBefore(new N8NSignatureAuthenticationFilter(n8NConfigurationProperties, n8NSignatureReplayService), AuthorizationFilter.class)
+                .authorizeHttpRequests(authz -> authz.anyRequest().hasRole(N8NSignatureAuthenticationFilter.ROLE_N8N))
+                .exceptionHandling(exceptions -> exceptions.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)));
+        return http.build();
+    }
+
     @Bean
+    @Order(2)
     public SecurityFilterChain filterChain(HttpSecurity http, CognitoLogoutHandler cognitoLogoutHandler) throws Exception {
         http.csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(authz -> authz
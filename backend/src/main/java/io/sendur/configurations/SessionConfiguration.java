@@ -0,0 +1,30 @@
+package io.sendur.configurations;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.security.jackson2.SecurityJackson2Modules;
+import org.springframework.session.data.mongo.AbstractMongoSessionConverter;
+import org.springframework.session.data.mongo.JacksonMongoSessionConverter;
+import org.springframework.session.data.mongo.config.annotation.web.http.EnableMongoHttpSession;
+
+/**
+ * Stores HTTP sessions in MongoDB instead of in memory, so any {@code SiteApplication} instance behind the
+ * load balancer can serve any request without sticky sessions.
+ */
+@Configuration
+@EnableMongoHttpSession(collectionName = "sessions", maxInactiveIntervalInSeconds = 1800)
+public class SessionConfiguration {
+
+    /**
+     * By default, session attributes are stored as a JDK serialized blob. This converter stores them as
+     * JSON documents instead, which are smaller for the OAuth2 security context and saved requests that
+     * make up our sessions, and don't break when a class changes between deployments. The Spring Security
+     * Jackson modules restrict deserialization to an allowlist of security types.
+     *
+     * @return {@link AbstractMongoSessionConverter}
+     */
+    @Bean
+    public AbstractMongoSessionConverter mongoSessionConverter() {
+        return new JacksonMongoSessionConverter(SecurityJackson2Modules.getModules(getClass().getClassLoader()));
+    }
+}
@@ -1,8 +1,10 @@
 package io.sendur.configurations;
 
+import com.mongodb.ConnectionString;
 import com.mongodb.MongoClientSettings;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
+import io.micrometer.observation.ObservationRegistry;
 import io.sendur.models.Lead;
 import org.bson.codecs.configuration.CodecRegistry;
 import org.bson.codecs.pojo.PojoCodecProvider;
@@ -14,6 +16,8 @@ import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
 import org.springframework.data.mongodb.core.convert.DefaultMongoTypeMapper;
 import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.observability.ContextProviderFactory;
+import org.springframework.data.mongodb.observability.MongoObservationCommandListener;
 
 import static org.bson.codecs.configuration.CodecRegistries.fromProviders;
 import static org.bson.codecs.configuration.CodecRegistries.fromRegistries;
@@ -27,14 +31,28 @@ public class SpringMongoConfig {
     @Value("${spring.data.mongodb.database}")
     private String database;
 
+    /**
+     * Every Mongo command is recorded as an observation, and therefore a span, nested under whatever
+     * observation is current when the command is issued.
+     *
+     * @param observationRegistry {@link ObservationRegistry}
+     *
+     * @return {@link MongoClient}
+     */
     @Bean
-    public MongoClient mongoClient() {
-        return MongoClients.create(mongoUri);
+    public MongoClient mongoClient(ObservationRegistry observationRegistry) {
+        ConnectionString connectionString = new ConnectionString(mongoUri);
+        MongoClientSettings settings = MongoClientSettings.builder()
+                .applyConnectionString(connectionString)
+                .addCommandListener(new MongoObservationCommandListener(observationRegistry, connectionString))
+                .contextProvider(ContextProviderFactory.create(observationRegistry))
+                .build();
+        return MongoClients.create(settings);
     }
 
     @Bean
-    public MongoDatabaseFactory mongoDatabaseFactory() {
-        return new SimpleMongoClientDatabaseFactory(mongoClient(), database);
+    public MongoDatabaseFactory mongoDatabaseFactory(MongoClient mongoClient) {
+        return new SimpleMongoClientDatabaseFactory(mongoClient, database);
     }
 
     /**
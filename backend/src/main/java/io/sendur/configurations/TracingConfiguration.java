@@ -0,0 +1,27 @@
+package io.sendur.configurations;
+
+import io.opentelemetry.exporter.logging.LoggingSpanExporter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class TracingConfiguration {
+
+    /**
+     * Writes every finished span to the application log, so a slow approval can be broken down into request
+     * handling, Mongo commands, the n8n socket probe and the n8n webhook call without running a collector.
+     * Spring Boot samples 10% of traces by default, set {@code management.tracing.sampling.probability=1.0}
+     * to see all of them.
+     * <p>
+     * Span output is verbose, so the exporter is opt-in: set {@code tracing.logging-exporter.enabled=true}, e.g.
+     * in a local {@code application.properties}.
+     *
+     * @return {@link LoggingSpanExporter}
+     */
+    @Bean
+    @ConditionalOnProperty(name = "tracing.logging-exporter.enabled", havingValue = "true")
+    public LoggingSpanExporter loggingSpanExporter() {
+        return LoggingSpanExporter.create();
+    }
+}
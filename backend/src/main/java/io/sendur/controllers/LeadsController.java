@@ -1,8 +1,9 @@
 package io.sendur.controllers;
 
-import io.micrometer.common.util.StringUtils;
 import io.sendur.models.*;
 import io.sendur.services.LeadService;
+import io.sendur.services.LeadStatsService;
+import io.sendur.services.LeadValidationService;
 import io.sendur.services.N8NService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -13,7 +14,6 @@ import org.springframework.web.bind.annotation.*;
 
 import java.net.http.HttpResponse;
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.List;
 
 @RestController
@@ -23,21 +23,28 @@ public class LeadsController {
 
     private final LeadService leadService;
     private final N8NService n8NService;
+    private final LeadValidationService leadValidationService;
+    private final LeadStatsService leadStatsService;
 
     @Autowired
-    public LeadsController(LeadService leadService, N8NService n8NService) {
+    public LeadsController(LeadService leadService, N8NService n8NService, LeadValidationService leadValidationService,
+                           LeadStatsService leadStatsService) {
         this.leadService = leadService;
         this.n8NService = n8NService;
+        this.leadValidationService = leadValidationService;
+        this.leadStatsService = leadStatsService;
     }
 
     /**
-     * Loads all available leads.
+     * Loads all available leads. Contacted leads that have been archived are only included on request.
+     *
+     * @param includeArchived whether to include archived leads
      *
      * @return {@linkplain ResponseEntity leads}
      */
     @GetMapping("/find-all")
-    public ResponseEntity<List<Lead>> receiveAllLeads() {
-        List<Lead> leads = leadService.loadAllLeads();
+    public ResponseEntity<List<Lead>> receiveAllLeads(@RequestParam(defaultValue = "false") boolean includeArchived) {
+        List<Lead> leads = leadService.loadAllLeads(includeArchived);
         LOGGER.info("All leads loaded: {}", leads.size());
         return ResponseEntity.ok()
                 .contentType(MediaType.APPLICATION_JSON)
@@ -45,6 +52,20 @@ public class LeadsController {
                 .body(leads);
     }
 
+    /**
+     * Loads lead totals: by city, by email status, contacted vs. not contacted and ingested per day. These
+     * are read from a single, incrementally maintained stats document rather than computed from the leads.
+     *
+     * @return {@linkplain ResponseEntity lead stats}
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<LeadStats> receiveLeadStats() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .lastModified(Instant.now().toEpochMilli())
+                .body(leadStatsService.loadStats());
+    }
+
     /**
      * Scheduled workflow every morning that runs and finds available business leads
      * based on the requirements of the N8N workflow:
@@ -113,11 +134,14 @@ public class LeadsController {
      * <ol>
      *     <li>Admin selects leads in the UI that have emails, but are yet unapproved for sending</li>
      *     <li>This list of leads are sent from frontend to this backend API</li>
+     *     <li>The {@link LeadValidationService} rejects leads that can't be sent. If none are left, an
+     *         {@link ApprovedLeadsResponse} with only the rejections is returned and the webhook is never called</li>
      *     <li>The N8NService sends the list of approved {@linkplain Lead leads} to N8N webhook and our Agent send
      *         the emails</li>
      *     <li>If the emails to the leads are successful, The N8NService updates the approved {@linkplain Lead leads}
      *         in the datastore</li>
-     *      <li>This API receives the {@link HttpResponse response} statusCode to update the admin user and UI</li>
+     *      <li>This API receives the {@link HttpResponse response} statusCode to update the admin user and UI, along
+     *          with the {@link ApprovedLeadsResponse message ids and any rejected leads}</li>
      * </ol>
      *
      * @param leads {@linkplain List<Lead> list of leads}
@@ -127,40 +151,29 @@ public class LeadsController {
     @PostMapping("/approve-lead-emails")
     public ResponseEntity<?> approveLeadEmails(@RequestBody List<Lead> leads) {
         LOGGER.info("Sending approved leads to N8N 'Send Approve Emails Webhook'");
-        List<Lead> validatedLeads = reviewAndValidateLeadRecords(leads);
-        ApprovedLeadsWebhookResult sentApprovedLeadsResponse = n8NService.sendApprovedEmailsToLeads(validatedLeads);
+        LeadValidationReport validationReport = leadValidationService.validate(leads);
+        if (!validationReport.hasValidatedLeads()) {
+            LOGGER.warn("No sendable leads after validation: {}", validationReport.rejections());
+            return ResponseEntity.unprocessableEntity().body(new ApprovedLeadsResponse(List.of(), validationReport.rejections()));
+        }
+        final List<LeadRejection> rejections = validationReport.rejections();
+        if (!rejections.isEmpty()) {
+            LOGGER.info("Rejected leads: {}", rejections);
+        }
+        ApprovedLeadsWebhookResult sentApprovedLeadsResponse = n8NService.sendApprovedEmailsToLeads(validationReport.validatedLeads());
         if (sentApprovedLeadsResponse != null) {
             final int statusCode = sentApprovedLeadsResponse.statusCode();
             final List<WebhookMessageId> webhookMessageIdList = sentApprovedLeadsResponse.webhookMessageIds();
             LOGGER.info("success. status code: {}", sentApprovedLeadsResponse.statusCode());
             if (statusCode == 200) {
                 LOGGER.info("Webhook call successful. Content: {}", webhookMessageIdList);
-                return ResponseEntity.ok().body(webhookMessageIdList);
+                return ResponseEntity.ok().body(new ApprovedLeadsResponse(webhookMessageIdList, rejections));
             } else {
                 LOGGER.warn("Webhook call not exactly success. status code: {}", statusCode);
-                return ResponseEntity.status(statusCode).body(webhookMessageIdList);
+                return ResponseEntity.status(statusCode).body(new ApprovedLeadsResponse(webhookMessageIdList, rejections));
             }
         }
         LOGGER.info("something went wrong.");
         return ResponseEntity.badRequest().body("Webhook call failed");
     }
-
-    /**
-     * A validation helper to ensure lead records have filled data properties. We don't want to
-     * send leads that do not have email addresses. This helps mitigate errors on the n8n webhook.
-     *
-     * @param leads {@linkplain Lead leads}
-     *
-     * @return validated {@linkplain List of leads}
-     */
-    private List<Lead> reviewAndValidateLeadRecords(List<Lead> leads) {
-        List<Lead> validatedLeads = new ArrayList<>();
-        for (Lead lead : leads) {
-            if (lead != null && StringUtils.isNotEmpty(lead.getEmail())) {
-                validatedLeads.add(lead);
-            }
-        }
-        LOGGER.info("validated leads {} of {} original leads.", validatedLeads.size(), leads.size());
-        return validatedLeads;
-    }
 }
@@ -0,0 +1,35 @@
+package io.sendur.controllers;
+
+import io.sendur.models.N8NLimiterSnapshot;
+import io.sendur.services.N8NService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/sendur/api/n8n")
+public class N8NController {
+
+    private final N8NService n8NService;
+
+    @Autowired
+    public N8NController(N8NService n8NService) {
+        this.n8NService = n8NService;
+    }
+
+    /**
+     * Current state of the outbound n8n webhook limiter: the adaptive concurrency limit, in-flight and queued
+     * calls, rejections and the remaining retry budget.
+     *
+     * @return {@linkplain ResponseEntity limiter snapshot}
+     */
+    @GetMapping("/limiter")
+    public ResponseEntity<N8NLimiterSnapshot> limiterSnapshot() {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(n8NService.limiterSnapshot());
+    }
+}
@@ -0,0 +1,13 @@
+package io.sendur.models;
+
+import java.util.List;
+
+/**
+ * The {@code ApprovedLeadsResponse} is returned to the UI after approved {@linkplain Lead leads} are sent to the
+ * {@code n8n Send Approved Emails Webhook}. Leads rejected by pre-dispatch validation were never sent, they're
+ * reported alongside the message ids of the leads that were so the admin can see both.
+ *
+ * @param webhookMessageIds confirmed email receipts
+ * @param rejections per-lead rejection report
+ */
+public record ApprovedLeadsResponse(List<WebhookMessageId> webhookMessageIds, List<LeadRejection> rejections) {}
@@ -0,0 +1,26 @@
+package io.sendur.models;
+
+import lombok.Data;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * Progress of a lead archiving run. A run that has not {@code completedAt} is resumed with the same
+ * {@code cutoff}, starting after {@code lastId}.
+ */
+@Data
+@Document("archive_checkpoints")
+public class ArchiveCheckpoint {
+
+    @Id
+    private String id;
+
+    private Instant cutoff;
+    private ObjectId lastId;
+    private long archived;
+    private Instant startedAt;
+    private Instant completedAt;
+}
@@ -10,6 +10,9 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
+import java.time.Instant;
+import java.util.Locale;
+
 @Data
 @Document("leads")
 public class Lead {
@@ -28,6 +31,8 @@ public class Lead {
     private String website;
     private String emailDraft;
     private boolean haveContacted;
+    private Instant contactedAt;
+    private String dedupKey;
 
     public Lead() {}
 
@@ -40,6 +45,25 @@ public class Lead {
         this.website = builder.website;
         this.emailDraft = builder.emailDraft;
         this.haveContacted = builder.haveContacted;
+        this.contactedAt = builder.contactedAt;
+        this.dedupKey = dedupKey(builder.businessName, builder.city);
+    }
+
+    /**
+     * Identifies the same business across ingests, no matter which collection the lead lives in. The AI Agent
+     * is not consistent with case or spacing, so both are normalized.
+     *
+     * @param businessName business name
+     * @param city city
+     *
+     * @return dedup key
+     */
+    public static String dedupKey(String businessName, String city) {
+        return normalize(businessName) + "|" + normalize(city);
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
     }
 
     public static class Builder {
@@ -51,6 +75,7 @@ public class Lead {
         private String website;
         private String emailDraft;
         private boolean haveContacted;
+        private Instant contactedAt;
 
         public Builder() {
             // nothing to complete inside builder
@@ -96,6 +121,11 @@ public class Lead {
             return this;
         }
 
+        public Builder contactedAt(Instant contactedAt) {
+            this.contactedAt = contactedAt;
+            return this;
+        }
+
         public Lead build() {
             return new Lead(this);
         }
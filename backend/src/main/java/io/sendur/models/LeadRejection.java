@@ -0,0 +1,11 @@
+package io.sendur.models;
+
+/**
+ * A single {@link Lead} that did not pass pre-dispatch validation.
+ *
+ * @param leadId lead identifier, if the lead has been persisted
+ * @param businessName lead business name
+ * @param email email address as it was received
+ * @param reason why the lead was rejected
+ */
+public record LeadRejection(String leadId, String businessName, String email, LeadRejectionReason reason) {}
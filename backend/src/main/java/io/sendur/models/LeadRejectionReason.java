@@ -0,0 +1,13 @@
+package io.sendur.models;
+
+/**
+ * Reasons a {@link Lead} can be rejected before it is dispatched to the {@code n8n Send Approved Emails Webhook}.
+ */
+public enum LeadRejectionReason {
+    MISSING_LEAD,
+    MISSING_EMAIL,
+    PLACEHOLDER_EMAIL,
+    INVALID_EMAIL,
+    DUPLICATE_RECIPIENT,
+    ALREADY_CONTACTED
+}
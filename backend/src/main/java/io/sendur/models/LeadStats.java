@@ -0,0 +1,30 @@
+package io.sendur.models;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Running totals over all leads, including archived ones. The single stats document is kept up to date with
+ * {@code $inc} as leads are ingested, enriched and approved, so reading it never touches the leads themselves.
+ * Map keys are city names, email statuses and {@code yyyy-MM-dd} UTC days.
+ */
+@Data
+@Document("lead_stats")
+public class LeadStats {
+
+    @Id
+    private String id;
+
+    private long total;
+    private long contacted;
+    private long notContacted;
+    private Map<String, Long> byCity = new HashMap<>();
+    private Map<String, Long> byEmailStatus = new HashMap<>();
+    private Map<String, Long> ingestedPerDay = new HashMap<>();
+    private Instant reconciledAt;
+}
@@ -0,0 +1,18 @@
+package io.sendur.models;
+
+import java.util.List;
+
+/**
+ * The {@code LeadValidationReport} is the result of running approved {@linkplain Lead leads} through the
+ * pre-dispatch validation pipeline. Only {@code validatedLeads} are safe to send to the n8n webhook, every
+ * other lead is accounted for in {@code rejections}.
+ *
+ * @param validatedLeads leads with a normalized, sendable email address
+ * @param rejections per-lead rejection report
+ */
+public record LeadValidationReport(List<Lead> validatedLeads, List<LeadRejection> rejections) {
+
+    public boolean hasValidatedLeads() {
+        return validatedLeads != null && !validatedLeads.isEmpty();
+    }
+}
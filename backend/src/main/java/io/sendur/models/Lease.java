@@ -0,0 +1,22 @@
+package io.sendur.models;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * A time-bound claim on leadership. The instance named by {@code owner} is the leader until
+ * {@code expiresAt}, unless it renews the lease first.
+ */
+@Data
+@Document("leases")
+public class Lease {
+
+    @Id
+    private String name;
+
+    private String owner;
+    private Instant expiresAt;
+}
@@ -0,0 +1,13 @@
+package io.sendur.models;
+
+/**
+ * Point-in-time view of the outbound n8n webhook limiter and retry budget.
+ *
+ * @param limit current number of webhook calls allowed in flight
+ * @param inFlight webhook calls currently in flight
+ * @param queued callers waiting for a permit
+ * @param rejected callers rejected because the queue was full or the wait timed out
+ * @param retries retries attempted
+ * @param retryBudget retries currently available
+ */
+public record N8NLimiterSnapshot(int limit, int inFlight, int queued, long rejected, long retries, double retryBudget) {}
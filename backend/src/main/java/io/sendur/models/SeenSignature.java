@@ -0,0 +1,31 @@
+package io.sendur.models;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.Instant;
+
+/**
+ * An n8n callback signature that has already been accepted. The signature is the document id, so a replay of
+ * the same request fails on the unique {@code _id} index on every instance. Documents are removed by a TTL index
+ * on {@code expiresAt}, the time after which the request would be rejected as stale anyway.
+ */
+@Data
+@Document("n8n_signatures")
+public class SeenSignature {
+
+    @Id
+    private String signature;
+
+    private Instant signedAt;
+    private Instant expiresAt;
+
+    public SeenSignature() {}
+
+    public SeenSignature(String signature, Instant signedAt, Instant expiresAt) {
+        this.signature = signature;
+        this.signedAt = signedAt;
+        this.expiresAt = expiresAt;
+    }
+}
@@ -1,10 +1,12 @@
 package io.sendur.repositories;
 
 import io.sendur.models.Lead;
+import org.bson.types.ObjectId;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -12,4 +14,30 @@ public interface LeadRepository extends MongoRepository<Lead, String> {
 
     @Query("{ 'email':  {$regex: '^Not available$', $options: 'i' } }")
     List<Lead> findLeadByEmailNotAvailable();
+
+    /**
+     * Batched lookup of leads that have already been contacted, matched either by id or by recipient
+     * email. Emails are compared case-insensitively, using the collation of the {@code email} index created by
+     * {@link io.sendur.services.LeadArchiveService#ensureIndexes()}. Only the {@code _id} and {@code email} fields
+     * are returned.
+     *
+     * @param ids lead ids
+     * @param emails recipient email addresses
+     *
+     * @return contacted {@linkplain Lead leads}
+     */
+    @Query(value = "{ 'haveContacted': true, $or: [ { '_id': { $in: ?0 } }, { 'email': { $in: ?1 } } ] }",
+            fields = "{ '_id': 1, 'email': 1 }",
+            collation = "{ 'locale': 'en', 'strength': 2 }")
+    List<Lead> findContactedLeadsByIdOrEmail(Collection<ObjectId> ids, Collection<String> emails);
+
+    /**
+     * Leads that share a dedup key with incoming leads. Only the dedup key is returned.
+     *
+     * @param dedupKeys dedup keys
+     *
+     * @return {@linkplain Lead leads}
+     */
+    @Query(value = "{ 'dedupKey': { $in: ?0 } }", fields = "{ 'dedupKey': 1 }")
+    List<Lead> findByDedupKeyIn(Collection<String> dedupKeys);
 }
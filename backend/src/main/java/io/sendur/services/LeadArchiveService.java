@@ -0,0 +1,255 @@
+package io.sendur.services;
+
+import io.sendur.configurations.LeadArchiveConfigurationProperties;
+import io.sendur.models.ArchiveCheckpoint;
+import io.sendur.models.Lead;
+import jakarta.annotation.PostConstruct;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Collation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Moves contacted leads out of the working {@code leads} collection into {@code leads_archive} once they are older
+ * than {@code lead-archive.contacted-age-days}, so scans of the working set don't grow with outreach history.
+ * <p>
+ * Leads are moved in {@code _id} order, one batch at a time: the batch is upserted into the archive, removed from
+ * {@code leads}, and the checkpoint is advanced. Every step is idempotent, so a run interrupted at any point is
+ * resumed from the checkpoint with the same cutoff. A run stops between batches if this instance loses leadership,
+ * and whichever instance is leader next resumes it.
+ */
+@Service
+public class LeadArchiveService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LeadArchiveService.class);
+
+    public static final String ARCHIVE_COLLECTION = "leads_archive";
+
+    private static final String CHECKPOINT_ID = "leads";
+    private static final String ID = "_id";
+    private static final String EMAIL = "email";
+    private static final String BUSINESS_NAME = "businessName";
+    private static final String CITY = "city";
+    private static final String DEDUP_KEY = "dedupKey";
+    private static final String HAVE_CONTACTED = "haveContacted";
+    private static final String CONTACTED_AT = "contactedAt";
+    private static final String EMAIL_INDEX = "email_case_insensitive";
+
+    /**
+     * Recipients are matched ignoring case, e.g. {@code Info@Foo.COM} and {@code info@foo.com}. Must match the
+     * collation of {@link io.sendur.repositories.LeadRepository#findContactedLeadsByIdOrEmail}.
+     */
+    static final Collation CASE_INSENSITIVE = Collation.of("en").strength(Collation.ComparisonLevel.secondary());
+
+    private final MongoTemplate mongoTemplate;
+    private final LeaderElectionService leaderElectionService;
+    private final LeadArchiveConfigurationProperties properties;
+
+    @Autowired
+    public LeadArchiveService(MongoTemplate mongoTemplate, LeaderElectionService leaderElectionService,
+                              LeadArchiveConfigurationProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.leaderElectionService = leaderElectionService;
+        this.properties = properties;
+    }
+
+    /**
+     * Creates the indexes the lead lookups rely on and gives every lead stored before dedup keys existed its key,
+     * so duplicates can be found through the {@code dedupKey} index alone. Runs before the application takes
+     * traffic, so ingests never see a lead without a key.
+     */
+    @PostConstruct
+    public void ensureIndexes() {
+        mongoTemplate.indexOps(Lead.class).ensureIndex(new Index().on(DEDUP_KEY, Sort.Direction.ASC));
+        mongoTemplate.indexOps(Lead.class).ensureIndex(new Index()
+                .on(HAVE_CONTACTED, Sort.Direction.ASC)
+                .on(CONTACTED_AT, Sort.Direction.ASC));
+        mongoTemplate.indexOps(Lead.class).ensureIndex(emailIndex());
+        mongoTemplate.indexOps(ARCHIVE_COLLECTION).ensureIndex(new Index().on(DEDUP_KEY, Sort.Direction.ASC));
+        mongoTemplate.indexOps(ARCHIVE_COLLECTION).ensureIndex(emailIndex());
+        backfillDedupKeys(mongoTemplate.getCollectionName(Lead.class));
+        backfillDedupKeys(ARCHIVE_COLLECTION);
+    }
+
+    public List<Lead> loadArchivedLeads() {
+        return mongoTemplate.findAll(Lead.class, ARCHIVE_COLLECTION);
+    }
+
+    /**
+     * Archived leads that share a dedup key with incoming leads.
+     *
+     * @param dedupKeys dedup keys
+     *
+     * @return archived {@linkplain Lead leads} with only the dedup key loaded
+     */
+    public List<Lead> findArchivedByDedupKeys(Collection<String> dedupKeys) {
+        Query query = new Query(Criteria.where(DEDUP_KEY).in(dedupKeys));
+        query.fields().include(DEDUP_KEY);
+        return mongoTemplate.find(query, Lead.class, ARCHIVE_COLLECTION);
+    }
+
+    /**
+     * Archived leads matched by id or recipient email, ignoring case. Every archived lead has been contacted.
+     *
+     * @param ids lead ids
+     * @param emails recipient email addresses
+     *
+     * @return archived {@linkplain Lead leads} with only the id and email loaded
+     */
+    public List<Lead> findArchivedByIdOrEmail(Collection<ObjectId> ids, Collection<String> emails) {
+        Query query = new Query(new Criteria().orOperator(
+                Criteria.where(ID).in(ids),
+                Criteria.where(EMAIL).in(emails)))
+                .collation(CASE_INSENSITIVE);
+        query.fields().include(ID, EMAIL);
+        return mongoTemplate.find(query, Lead.class, ARCHIVE_COLLECTION);
+    }
+
+    @Scheduled(cron = "${lead-archive.cron:0 30 3 * * *}")
+    public void scheduledArchive() {
+        leaderElectionService.runIfLeader("lead archiving", this::archiveContactedLeads);
+    }
+
+    /**
+     * Archives contacted leads older than the configured age, resuming an unfinished run if there is one. Stops
+     * early, leaving the run to be resumed, if this instance is no longer the leader.
+     *
+     * @return number of leads archived by this call
+     */
+    public long archiveContactedLeads() {
+        ArchiveCheckpoint checkpoint = startOrResume();
+        long archived = 0;
+        List<Lead> batch = nextBatch(checkpoint);
+        while (!batch.isEmpty()) {
+            if (!leaderElectionService.isLeader()) {
+                LOGGER.warn("Lost leadership, stopping lead archiving after {} leads at {}", archived, checkpoint.getLastId());
+                return archived;
+            }
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Lead.class, ARCHIVE_COLLECTION);
+            for (Lead lead : batch) {
+                bulk.replaceOne(new Query(Criteria.where(ID).is(lead.getId())), lead, FindAndReplaceOptions.options().upsert());
+            }
+            bulk.execute();
+
+            List<ObjectId> ids = batch.stream().map(Lead::getId).toList();
+            long removed = removeArchived(ids, checkpoint.getCutoff());
+
+            archived += removed;
+            checkpoint.setLastId(ids.get(ids.size() - 1));
+            checkpoint.setArchived(checkpoint.getArchived() + removed);
+            mongoTemplate.save(checkpoint);
+            batch = nextBatch(checkpoint);
+        }
+        checkpoint.setCompletedAt(Instant.now());
+        mongoTemplate.save(checkpoint);
+        LOGGER.info("Archived {} contacted leads older than {}", archived, checkpoint.getCutoff());
+        return archived;
+    }
+
+    /**
+     * Sets {@code dedupKey} on leads that don't have one, a batch at a time. Missing keys are found through the
+     * {@code dedupKey} index, so once every lead has a key this is a single empty index lookup.
+     */
+    private void backfillDedupKeys(String collection) {
+        long backfilled = 0;
+        List<Lead> batch;
+        do {
+            Query query = new Query(Criteria.where(DEDUP_KEY).is(null)).limit(properties.getBatchSize());
+            query.fields().include(BUSINESS_NAME, CITY);
+            batch = mongoTemplate.find(query, Lead.class, collection);
+            if (batch.isEmpty()) {
+                break;
+            }
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Lead.class, collection);
+            for (Lead lead : batch) {
+                bulk.updateOne(new Query(Criteria.where(ID).is(lead.getId())),
+                        new Update().set(DEDUP_KEY, Lead.dedupKey(lead.getBusinessName(), lead.getCity())));
+            }
+            bulk.execute();
+            backfilled += batch.size();
+        } while (batch.size() == properties.getBatchSize());
+        if (backfilled > 0) {
+            LOGGER.info("Backfilled dedup keys of {} leads in {}", backfilled, collection);
+        }
+    }
+
+    private static Index emailIndex() {
+        return new Index().on(EMAIL, Sort.Direction.ASC).named(EMAIL_INDEX).collation(CASE_INSENSITIVE);
+    }
+
+    private ArchiveCheckpoint startOrResume() {
+        ArchiveCheckpoint checkpoint = mongoTemplate.findById(CHECKPOINT_ID, ArchiveCheckpoint.class);
+        if (checkpoint != null && checkpoint.getCompletedAt() == null) {
+            LOGGER.info("Resuming lead archiving after {}, cutoff {}", checkpoint.getLastId(), checkpoint.getCutoff());
+            return checkpoint;
+        }
+        final Instant now = Instant.now();
+        checkpoint = new ArchiveCheckpoint();
+        checkpoint.setId(CHECKPOINT_ID);
+        checkpoint.setStartedAt(now);
+        checkpoint.setCutoff(now.minus(Duration.ofDays(properties.getContactedAgeDays())));
+        mongoTemplate.save(checkpoint);
+        return checkpoint;
+    }
+
+    /**
+     * Removes the archived batch from {@code leads}, but only leads that still qualify for archiving. A lead that
+     * changed after the batch was read, e.g. replaced by {@code /update-emails} or un-flagged by an admin, keeps
+     * its live version in {@code leads} and the stale copy is taken back out of the archive.
+     *
+     * @return number of leads moved into the archive
+     */
+    private long removeArchived(List<ObjectId> ids, Instant cutoff) {
+        long removed = mongoTemplate.remove(new Query(new Criteria().andOperator(
+                archivable(cutoff), Criteria.where(ID).in(ids))), Lead.class).getDeletedCount();
+        if (removed < ids.size()) {
+            Query remaining = new Query(Criteria.where(ID).in(ids));
+            remaining.fields().include(ID);
+            List<ObjectId> changed = mongoTemplate.find(remaining, Lead.class).stream().map(Lead::getId).toList();
+            if (!changed.isEmpty()) {
+                mongoTemplate.remove(new Query(Criteria.where(ID).in(changed)), Lead.class, ARCHIVE_COLLECTION);
+                LOGGER.info("Left {} leads that changed during archiving in place", changed.size());
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Leads contacted before the cutoff. Leads contacted before {@code contactedAt} was recorded fall back to the
+     * time they were created.
+     */
+    private static Criteria archivable(Instant cutoff) {
+        return Criteria.where(HAVE_CONTACTED).is(true).orOperator(
+                Criteria.where(CONTACTED_AT).lt(cutoff),
+                new Criteria().andOperator(
+                        Criteria.where(CONTACTED_AT).exists(false),
+                        Criteria.where(ID).lt(new ObjectId(Date.from(cutoff)))));
+    }
+
+    private List<Lead> nextBatch(ArchiveCheckpoint checkpoint) {
+        Criteria criteria = archivable(checkpoint.getCutoff());
+        if (checkpoint.getLastId() != null) {
+            criteria = new Criteria().andOperator(criteria, Criteria.where(ID).gt(checkpoint.getLastId()));
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, ID))
+                .limit(properties.getBatchSize());
+        return mongoTemplate.find(query, Lead.class);
+    }
+}
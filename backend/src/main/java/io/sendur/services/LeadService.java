@@ -1,14 +1,28 @@
 package io.sendur.services;
 
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import io.sendur.models.Lead;
 import io.sendur.models.LeadRequest;
 import io.sendur.repositories.LeadRepository;
+import org.bson.types.ObjectId;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.stereotype.Service;
 
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class LeadService {
@@ -16,45 +30,93 @@ public class LeadService {
 
     private static final String LEAD_LOAD_FAILURE = "Failed to load lead: {}";
     private static final String LEADS_LOAD_MESSAGE = "Loaded {} out of {} leads";
+    private static final String LEAD_DUPLICATE_MESSAGE = "Skipping duplicate lead: {}";
+
+    private static final String ID = "_id";
+    private static final String CONTACTED_AT = "contactedAt";
 
     private final LeadRepository leadRepository;
+    private final MongoTemplate mongoTemplate;
+    private final LeadStatsService leadStatsService;
+    private final LeadArchiveService leadArchiveService;
+    private final ObservationRegistry observationRegistry;
 
     @Autowired
-    public LeadService(LeadRepository leadRepository) {
+    public LeadService(LeadRepository leadRepository, MongoTemplate mongoTemplate, LeadStatsService leadStatsService,
+                       LeadArchiveService leadArchiveService, ObservationRegistry observationRegistry) {
         this.leadRepository = leadRepository;
+        this.mongoTemplate = mongoTemplate;
+        this.leadStatsService = leadStatsService;
+        this.leadArchiveService = leadArchiveService;
+        this.observationRegistry = observationRegistry;
     }
 
     public List<Lead> loadAllLeads() {
         return leadRepository.findAll();
     }
 
+    /**
+     * Loads the working set of leads and, only when asked for, the archived contacted leads as well.
+     *
+     * @param includeArchived whether to also read the archive
+     *
+     * @return {@linkplain Lead leads}
+     */
+    public List<Lead> loadAllLeads(boolean includeArchived) {
+        if (!includeArchived) {
+            return loadAllLeads();
+        }
+        List<Lead> leads = new ArrayList<>(leadRepository.findAll());
+        leads.addAll(leadArchiveService.loadArchivedLeads());
+        return leads;
+    }
+
     public List<Lead> loadLeadsWithNoEmail() {
         return leadRepository.findLeadByEmailNotAvailable();
     }
 
+    /**
+     * Saves leads posted back by n8n, e.g. enriched with an email. A lead that appears more than once in the
+     * payload is saved once, with its last occurrence.
+     *
+     * @param leads {@linkplain Lead leads}
+     *
+     * @return number of leads saved
+     */
     public int loadLeads(List<Lead> leads) {
         int received = leads.size();
         int loaded = 0;
-        for (Lead lead : leads) {
+        SavedLeads savedLeads = new SavedLeads();
+        for (Lead lead : lastById(leads)) {
             System.out.println("Uploading Lead: " + lead.getBusinessName());
+            lead.setDedupKey(Lead.dedupKey(lead.getBusinessName(), lead.getCity()));
             try {
-                Lead result = leadRepository.save(lead);
-                if (result.getId() != null) {
-                    loaded++;
+                Lead previous = replace(lead);
+                if (previous != null && lead.getContactedAt() == null && previous.getContactedAt() != null) {
+                    keepContactedAt(lead, previous.getContactedAt());
                 }
+                loaded++;
+                savedLeads.add(previous, lead);
             } catch (Exception e) {
                 leadLoadFailureLog(lead.getBusinessName());
                 LOGGER.error(e.getMessage());
             }
         }
         leadsLoadedLog(loaded, received);
+        savedLeads.record(leadStatsService);
         return loaded;
     }
 
     public int loadScheduledLeads(List<LeadRequest> leads) {
         int received = leads.size();
         int loaded = 0;
+        List<Lead> savedLeads = new ArrayList<>();
+        Set<String> knownDedupKeys = findKnownDedupKeys(leads);
         for (LeadRequest lead : leads) {
+            if (!knownDedupKeys.add(Lead.dedupKey(lead.getBusinessName(), lead.getCity()))) {
+                LOGGER.info(LEAD_DUPLICATE_MESSAGE, lead.getBusinessName());
+                continue;
+            }
             System.out.println("Uploading Lead: " + lead.getBusinessName());
             Lead businessLead = new Lead.Builder()
                     .businessName(lead.getBusinessName())
@@ -69,6 +131,7 @@ public class LeadService {
                 Lead result = leadRepository.save(businessLead);
                 if (result.getId() != null) {
                     loaded++;
+                    savedLeads.add(result);
                 }
             } catch (Exception e) {
                 leadLoadFailureLog(lead.getBusinessName());
@@ -76,9 +139,118 @@ public class LeadService {
             }
         }
         leadsLoadedLog(loaded, received);
+        leadStatsService.recordIngested(savedLeads);
         return loaded;
     }
 
+    /**
+     * Marks leads whose emails were sent by the n8n webhook as contacted and persists them.
+     *
+     * @param leads approved {@linkplain Lead leads}
+     *
+     * @return saved {@linkplain Lead leads}
+     */
+    public List<Lead> saveContactedLeads(List<Lead> leads) {
+        return Observation.createNotStarted("leads.save-contacted", observationRegistry)
+                .highCardinalityKeyValue("leads.saved", String.valueOf(leads.size()))
+                .observe(() -> {
+                    final Instant contactedAt = Instant.now();
+                    List<Lead> contactedLeads = lastById(leads);
+                    SavedLeads savedLeads = new SavedLeads();
+                    for (Lead lead : contactedLeads) {
+                        lead.setHaveContacted(true);
+                        lead.setContactedAt(contactedAt);
+                        lead.setDedupKey(Lead.dedupKey(lead.getBusinessName(), lead.getCity()));
+                        savedLeads.add(replace(lead), lead);
+                    }
+                    savedLeads.record(leadStatsService);
+                    return contactedLeads;
+                });
+    }
+
+    /**
+     * Dedup keys of incoming leads that already exist, in the working set or in the archive, so archived leads
+     * are never ingested again.
+     */
+    private Set<String> findKnownDedupKeys(List<LeadRequest> leads) {
+        Set<String> dedupKeys = new HashSet<>();
+        for (LeadRequest lead : leads) {
+            dedupKeys.add(Lead.dedupKey(lead.getBusinessName(), lead.getCity()));
+        }
+        Set<String> knownDedupKeys = new HashSet<>();
+        leadRepository.findByDedupKeyIn(dedupKeys).forEach(known -> knownDedupKeys.add(known.getDedupKey()));
+        leadArchiveService.findArchivedByDedupKeys(dedupKeys).forEach(known -> knownDedupKeys.add(known.getDedupKey()));
+        return knownDedupKeys;
+    }
+
+    /**
+     * Saves the lead and returns the version it replaced in the same atomic operation. Concurrent updates of the
+     * same lead each get back the version they actually overwrote, so the stats deltas they record add up.
+     *
+     * @return the replaced {@link Lead}, or {@code null} if the lead was inserted
+     */
+    private Lead replace(Lead lead) {
+        if (lead.getId() == null) {
+            leadRepository.insert(lead);
+            return null;
+        }
+        return mongoTemplate.findAndReplace(new Query(Criteria.where(ID).is(lead.getId())), lead,
+                FindAndReplaceOptions.options().upsert());
+    }
+
+    /**
+     * n8n doesn't send {@code contactedAt} back, restore it unless it was set in the meantime.
+     */
+    private void keepContactedAt(Lead lead, Instant contactedAt) {
+        lead.setContactedAt(contactedAt);
+        mongoTemplate.updateFirst(new Query(Criteria.where(ID).is(lead.getId()).and(CONTACTED_AT).is(null)),
+                new Update().set(CONTACTED_AT, contactedAt), Lead.class);
+    }
+
+    /**
+     * Collapses leads with the same id, keeping the last occurrence in its original position. Subtracting the
+     * stored version once per occurrence would otherwise count it twice.
+     */
+    static List<Lead> lastById(List<Lead> leads) {
+        Map<ObjectId, Integer> lastIndex = new HashMap<>();
+        for (int i = 0; i < leads.size(); i++) {
+            if (leads.get(i).getId() != null) {
+                lastIndex.put(leads.get(i).getId(), i);
+            }
+        }
+        List<Lead> unique = new ArrayList<>(leads.size());
+        for (int i = 0; i < leads.size(); i++) {
+            ObjectId id = leads.get(i).getId();
+            if (id == null || lastIndex.get(id) == i) {
+                unique.add(leads.get(i));
+            }
+        }
+        return unique;
+    }
+
+    /**
+     * Saved leads split into those that replaced a stored version and those that were inserted.
+     */
+    private static class SavedLeads {
+        private final List<Lead> before = new ArrayList<>();
+        private final List<Lead> after = new ArrayList<>();
+        private final List<Lead> ingested = new ArrayList<>();
+
+        void add(Lead previous, Lead saved) {
+            if (previous == null) {
+                ingested.add(saved);
+            } else {
+                before.add(previous);
+                after.add(saved);
+            }
+        }
+
+        void record(LeadStatsService leadStatsService) {
+            leadStatsService.recordUpdated(before, after);
+            leadStatsService.recordIngested(ingested);
+        }
+    }
+
     private void leadLoadFailureLog(String businessName) {
         LOGGER.error(LEAD_LOAD_FAILURE, businessName);
     }
@@ -0,0 +1,246 @@
+package io.sendur.services;
+
+import io.sendur.models.Lead;
+import io.sendur.models.LeadStats;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Maintains the {@link LeadStats} document. Every change to a lead is turned into a set of counter deltas and
+ * applied with a single atomic {@code $inc}, so reading the stats is one document lookup no matter how many leads
+ * there are. Archived leads are still counted, moving a lead into the archive doesn't change the stats.
+ * <p>
+ * A lead's contribution is +1 to the total, to contacted or not contacted, to its city and to its email status.
+ * Updating a lead subtracts its previous contribution and adds the new one. Leads are counted as ingested on the
+ * UTC day their {@code ObjectId} was created, which is also what the reconciliation pipeline uses.
+ */
+@Service
+public class LeadStatsService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LeadStatsService.class);
+
+    public static final String STATS_ID = "leads";
+    public static final String EMAIL_AVAILABLE = "AVAILABLE";
+    public static final String EMAIL_NOT_AVAILABLE = "NOT_AVAILABLE";
+
+    private static final String LEADS_COLLECTION = "leads";
+    private static final String UNKNOWN_CITY = "Unknown";
+    private static final String NOT_AVAILABLE = "Not available";
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("yyyy-MM-dd").withZone(ZoneOffset.UTC);
+
+    private static final String TOTAL = "total";
+    private static final String CONTACTED = "contacted";
+    private static final String NOT_CONTACTED = "notContacted";
+    private static final String BY_CITY = "byCity";
+    private static final String BY_EMAIL_STATUS = "byEmailStatus";
+    private static final String INGESTED_PER_DAY = "ingestedPerDay";
+    private static final String COUNT = "n";
+
+    private final MongoTemplate mongoTemplate;
+    private final LeaderElectionService leaderElectionService;
+
+    @Autowired
+    public LeadStatsService(MongoTemplate mongoTemplate, LeaderElectionService leaderElectionService) {
+        this.mongoTemplate = mongoTemplate;
+        this.leaderElectionService = leaderElectionService;
+    }
+
+    /**
+     * @return current {@link LeadStats}, empty if nothing has been recorded yet
+     */
+    public LeadStats loadStats() {
+        LeadStats stats = mongoTemplate.findById(STATS_ID, LeadStats.class);
+        if (stats == null) {
+            stats = new LeadStats();
+            stats.setId(STATS_ID);
+        }
+        return stats;
+    }
+
+    /**
+     * Records newly inserted leads.
+     *
+     * @param leads persisted {@linkplain Lead leads}
+     */
+    public void recordIngested(Collection<Lead> leads) {
+        Map<String, Long> deltas = new HashMap<>();
+        for (Lead lead : leads) {
+            contribute(deltas, lead, 1);
+            if (lead.getId() != null) {
+                deltas.merge(INGESTED_PER_DAY + "." + DAY.format(lead.getId().getDate().toInstant()), 1L, Long::sum);
+            }
+        }
+        apply(deltas);
+    }
+
+    /**
+     * Records leads that were replaced, e.g. enriched with an email or approved.
+     *
+     * @param before {@linkplain Lead leads} as they were before the update
+     * @param after {@linkplain Lead leads} as they were saved
+     */
+    public void recordUpdated(Collection<Lead> before, Collection<Lead> after) {
+        Map<String, Long> deltas = new HashMap<>();
+        before.forEach(lead -> contribute(deltas, lead, -1));
+        after.forEach(lead -> contribute(deltas, lead, 1));
+        apply(deltas);
+    }
+
+    /**
+     * Recomputes the stats from the {@code leads} and {@code leads_archive} collections and replaces the stats document if it has drifted,
+     * e.g. after a failed {@code $inc} or a manual edit of the datastore. Increments made while the aggregation
+     * runs can be lost by the replace, the next run corrects them.
+     */
+    @Scheduled(fixedDelayString = "${lead-stats.reconcile-interval-millis:3600000}",
+            initialDelayString = "${lead-stats.reconcile-initial-delay-millis:60000}")
+    public void reconcile() {
+        leaderElectionService.runIfLeader("lead stats reconciliation", () -> {
+            LeadStats computed = aggregateStats();
+            if (!leaderElectionService.isLeader()) {
+                LOGGER.warn("Lost leadership during lead stats reconciliation, not saving the result");
+                return;
+            }
+            LeadStats stored = loadStats();
+            computed.setReconciledAt(Instant.now());
+            if (sameCounts(computed, stored)) {
+                mongoTemplate.updateFirst(new Query(Criteria.where("_id").is(STATS_ID)),
+                        new Update().set("reconciledAt", computed.getReconciledAt()), LeadStats.class);
+            } else {
+                LOGGER.warn("Lead stats drifted, total was {} but is {}. Rebuilding.", stored.getTotal(), computed.getTotal());
+                mongoTemplate.save(computed);
+            }
+        });
+    }
+
+    LeadStats aggregateStats() {
+        Document facet = new Document("$facet", new Document()
+                .append(TOTAL, List.of(new Document("$count", COUNT)))
+                .append(CONTACTED, List.of(group("$haveContacted")))
+                .append(BY_CITY, List.of(group("$city")))
+                .append(BY_EMAIL_STATUS, List.of(group(new Document("$cond", List.of(
+                        new Document("$regexMatch", new Document("input", new Document("$ifNull", List.of("$email", "")))
+                                .append("regex", "^\\s*(" + NOT_AVAILABLE + ")?\\s*$")
+                                .append("options", "i")),
+                        EMAIL_NOT_AVAILABLE,
+                        EMAIL_AVAILABLE)))))
+                .append(INGESTED_PER_DAY, List.of(group(new Document("$dateToString",
+                        new Document("format", "%Y-%m-%d").append("date", new Document("$toDate", "$_id")))))));
+        Document unionWithArchive = new Document("$unionWith", LeadArchiveService.ARCHIVE_COLLECTION);
+        Document result = mongoTemplate.getCollection(LEADS_COLLECTION).aggregate(List.of(unionWithArchive, facet)).first();
+
+        LeadStats stats = new LeadStats();
+        stats.setId(STATS_ID);
+        if (result == null) {
+            return stats;
+        }
+        for (Document total : result.getList(TOTAL, Document.class)) {
+            stats.setTotal(count(total));
+        }
+        for (Document contacted : result.getList(CONTACTED, Document.class)) {
+            if (Boolean.TRUE.equals(contacted.get("_id"))) {
+                stats.setContacted(stats.getContacted() + count(contacted));
+            } else {
+                stats.setNotContacted(stats.getNotContacted() + count(contacted));
+            }
+        }
+        for (Document city : result.getList(BY_CITY, Document.class)) {
+            stats.getByCity().merge(cityKey(city.getString("_id")), count(city), Long::sum);
+        }
+        for (Document email : result.getList(BY_EMAIL_STATUS, Document.class)) {
+            stats.getByEmailStatus().put(email.getString("_id"), count(email));
+        }
+        for (Document day : result.getList(INGESTED_PER_DAY, Document.class)) {
+            stats.getIngestedPerDay().put(day.getString("_id"), count(day));
+        }
+        return stats;
+    }
+
+    private void apply(Map<String, Long> deltas) {
+        deltas.values().removeIf(delta -> delta == 0);
+        if (deltas.isEmpty()) {
+            return;
+        }
+        Update update = new Update();
+        deltas.forEach(update::inc);
+        try {
+            mongoTemplate.findAndModify(new Query(Criteria.where("_id").is(STATS_ID)), update,
+                    FindAndModifyOptions.options().upsert(true), LeadStats.class);
+        } catch (Exception e) {
+            // the reconciliation job will correct the drift
+            LOGGER.error("Failed to update lead stats: {}", e.getMessage());
+        }
+    }
+
+    static void contribute(Map<String, Long> deltas, Lead lead, long sign) {
+        deltas.merge(TOTAL, sign, Long::sum);
+        deltas.merge(lead.isHaveContacted() ? CONTACTED : NOT_CONTACTED, sign, Long::sum);
+        deltas.merge(BY_CITY + "." + cityKey(lead.getCity()), sign, Long::sum);
+        deltas.merge(BY_EMAIL_STATUS + "." + emailStatus(lead.getEmail()), sign, Long::sum);
+    }
+
+    /**
+     * Mirrors the email status {@code $cond} in the reconciliation pipeline: blank or the {@code Not available}
+     * placeholder the AI Agent uses when it can't find an email.
+     */
+    static String emailStatus(String email) {
+        if (email == null || email.isBlank() || email.trim().equalsIgnoreCase(NOT_AVAILABLE)) {
+            return EMAIL_NOT_AVAILABLE;
+        }
+        return EMAIL_AVAILABLE;
+    }
+
+    /**
+     * City names are used as field names, so dots and a leading dollar sign are replaced with their full-width
+     * forms to keep them from being read as paths or operators.
+     */
+    static String cityKey(String city) {
+        if (city == null || city.isBlank()) {
+            return UNKNOWN_CITY;
+        }
+        String key = city.trim().replace('.', '\uFF0E');
+        return key.startsWith("$") ? '\uFF04' + key.substring(1) : key;
+    }
+
+    private static Document group(Object key) {
+        return new Document("$group", new Document("_id", key).append(COUNT, new Document("$sum", 1)));
+    }
+
+    private static long count(Document document) {
+        return document.get(COUNT, Number.class).longValue();
+    }
+
+    static boolean sameCounts(LeadStats computed, LeadStats stored) {
+        return computed.getTotal() == stored.getTotal()
+                && computed.getContacted() == stored.getContacted()
+                && computed.getNotContacted() == stored.getNotContacted()
+                && sameCounts(computed.getByCity(), stored.getByCity())
+                && sameCounts(computed.getByEmailStatus(), stored.getByEmailStatus())
+                && sameCounts(computed.getIngestedPerDay(), stored.getIngestedPerDay());
+    }
+
+    /**
+     * Decrements can leave zero counters behind, those are equivalent to a missing key.
+     */
+    private static boolean sameCounts(Map<String, Long> computed, Map<String, Long> stored) {
+        Map<String, Long> nonZero = new HashMap<>(stored == null ? Map.of() : stored);
+        nonZero.values().removeIf(count -> count == null || count == 0);
+        return Objects.equals(computed, nonZero);
+    }
+}
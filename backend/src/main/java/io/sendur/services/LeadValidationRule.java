@@ -0,0 +1,35 @@
+package io.sendur.services;
+
+import io.sendur.models.Lead;
+import io.sendur.models.LeadRejectionReason;
+
+import java.util.Optional;
+
+/**
+ * A single, stateless check applied to each {@link Lead} by the {@link LeadValidationService}. Rules must not
+ * depend on other leads in the batch, so they can be evaluated in parallel.
+ */
+@FunctionalInterface
+public interface LeadValidationRule {
+
+    /**
+     * @param lead {@link Lead} to check
+     *
+     * @return the rejection reason, or empty if the lead passes this rule
+     */
+    Optional<LeadRejectionReason> validate(Lead lead);
+
+    /**
+     * Composes this rule with another. The first rule to reject a lead wins.
+     *
+     * @param next {@link LeadValidationRule} evaluated when this rule passes
+     *
+     * @return composed {@link LeadValidationRule}
+     */
+    default LeadValidationRule andThen(LeadValidationRule next) {
+        return lead -> {
+            Optional<LeadRejectionReason> reason = validate(lead);
+            return reason.isPresent() ? reason : next.validate(lead);
+        };
+    }
+}
@@ -0,0 +1,250 @@
+package io.sendur.services;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.sendur.models.Lead;
+import io.sendur.models.LeadRejection;
+import io.sendur.models.LeadRejectionReason;
+import io.sendur.models.LeadValidationReport;
+import io.sendur.repositories.LeadRepository;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.net.IDN;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Pre-dispatch validation pipeline for approved {@linkplain Lead leads}. Every lead sent to the n8n
+ * {@code Send Approved Emails Webhook} costs an AI Agent run, so anything that can't be delivered is
+ * rejected here first. The pipeline runs in this order:
+ * <ol>
+ *     <li>Per-lead {@linkplain LeadValidationRule rules}: missing lead, missing email, placeholder email
+ *         (e.g. {@code "Not available"}) and email syntax. These run in parallel for large selections.</li>
+ *     <li>Domain normalization: the email is trimmed and its domain lower-cased and converted to ASCII.</li>
+ *     <li>Duplicate recipients within the batch are collapsed, keeping the first lead.</li>
+ *     <li>Leads already contacted, by id or by recipient, are skipped using one batched lookup of the working
+ *         set and one of the archive.</li>
+ * </ol>
+ */
+@Service
+public class LeadValidationService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LeadValidationService.class);
+
+    /**
+     * Selections at or above this size are validated with a parallel stream.
+     */
+    static final int PARALLEL_THRESHOLD = 256;
+
+    private static final int MAX_LOCAL_PART_LENGTH = 64;
+    private static final int MAX_EMAIL_LENGTH = 254;
+
+    private static final Set<String> PLACEHOLDER_EMAILS = Set.of(
+            "not available", "n/a", "na", "none", "null", "unknown", "not found", "-", "tbd");
+
+    /**
+     * Only the domains reserved for documentation by RFC 2606. Look-alikes such as {@code email.com} are real
+     * mail providers.
+     */
+    private static final Set<String> PLACEHOLDER_DOMAINS = Set.of("example.com", "example.org", "example.net");
+
+    /**
+     * RFC 5322 dot-atom local part and RFC 1035 domain labels. Quoted local parts and address literals are
+     * valid RFC syntax but are not something the AI Agent ever returns for a business, so they're rejected.
+     */
+    private static final Pattern EMAIL_PATTERN = Pattern.compile(
+            "^[A-Za-z0-9!#$%&'*+/=?^_`{|}~-]+(\\.[A-Za-z0-9!#$%&'*+/=?^_`{|}~-]+)*" +
+                    "@([A-Za-z0-9]([A-Za-z0-9-]{0,61}[A-Za-z0-9])?\\.)+[A-Za-z]{2,63}$");
+
+    static final LeadValidationRule NOT_NULL = lead -> lead == null
+            ? Optional.of(LeadRejectionReason.MISSING_LEAD)
+            : Optional.empty();
+
+    static final LeadValidationRule HAS_EMAIL = lead -> lead.getEmail() == null || lead.getEmail().isBlank()
+            ? Optional.of(LeadRejectionReason.MISSING_EMAIL)
+            : Optional.empty();
+
+    static final LeadValidationRule NOT_PLACEHOLDER = lead -> isPlaceholder(lead.getEmail())
+            ? Optional.of(LeadRejectionReason.PLACEHOLDER_EMAIL)
+            : Optional.empty();
+
+    static final LeadValidationRule VALID_SYNTAX = lead -> normalizeEmail(lead.getEmail()) == null
+            ? Optional.of(LeadRejectionReason.INVALID_EMAIL)
+            : Optional.empty();
+
+    private final LeadRepository leadRepository;
+    private final LeadArchiveService leadArchiveService;
+    private final ObservationRegistry observationRegistry;
+    private final LeadValidationRule rules;
+
+    @Autowired
+    public LeadValidationService(LeadRepository leadRepository, LeadArchiveService leadArchiveService,
+                                 ObservationRegistry observationRegistry) {
+        this.leadRepository = leadRepository;
+        this.leadArchiveService = leadArchiveService;
+        this.observationRegistry = observationRegistry;
+        this.rules = NOT_NULL.andThen(HAS_EMAIL).andThen(NOT_PLACEHOLDER).andThen(VALID_SYNTAX);
+    }
+
+    /**
+     * Runs the approved leads through the validation pipeline. Accepted leads have their email replaced with
+     * its normalized form.
+     *
+     * @param leads approved {@linkplain Lead leads}
+     *
+     * @return {@link LeadValidationReport}
+     */
+    public LeadValidationReport validate(List<Lead> leads) {
+        if (leads == null || leads.isEmpty()) {
+            return new LeadValidationReport(List.of(), List.of());
+        }
+        return Observation.createNotStarted("lead.validation", observationRegistry)
+                .lowCardinalityKeyValue("parallel", String.valueOf(leads.size() >= PARALLEL_THRESHOLD))
+                .highCardinalityKeyValue("leads.received", String.valueOf(leads.size()))
+                .observe(() -> runPipeline(leads));
+    }
+
+    private LeadValidationReport runPipeline(List<Lead> leads) {
+        Stream<Lead> stream = leads.size() >= PARALLEL_THRESHOLD ? leads.parallelStream() : leads.stream();
+        List<Outcome> outcomes = stream.map(this::applyRules).toList();
+
+        List<Lead> candidates = new ArrayList<>();
+        List<LeadRejection> rejections = new ArrayList<>();
+        Set<String> recipients = new HashSet<>();
+        for (Outcome outcome : outcomes) {
+            if (outcome.reason() != null) {
+                rejections.add(rejection(outcome.lead(), outcome.email(), outcome.reason()));
+            } else if (!recipients.add(recipientKey(outcome.lead().getEmail()))) {
+                rejections.add(rejection(outcome.lead(), outcome.email(), LeadRejectionReason.DUPLICATE_RECIPIENT));
+            } else {
+                candidates.add(outcome.lead());
+            }
+        }
+
+        List<Lead> validatedLeads = skipContactedLeads(candidates, outcomes, rejections);
+        LOGGER.info("validated leads {} of {} original leads, {} rejected.",
+                validatedLeads.size(), leads.size(), rejections.size());
+        return new LeadValidationReport(validatedLeads, rejections);
+    }
+
+    private Outcome applyRules(Lead lead) {
+        String received = lead == null ? null : lead.getEmail();
+        Optional<LeadRejectionReason> reason = rules.validate(lead);
+        if (reason.isPresent()) {
+            return new Outcome(lead, received, reason.get());
+        }
+        lead.setEmail(normalizeEmail(received));
+        return new Outcome(lead, received, null);
+    }
+
+    /**
+     * Skips candidates that are flagged as contacted in the payload, or that the datastore says have already
+     * been contacted either by id or by recipient email.
+     */
+    private List<Lead> skipContactedLeads(List<Lead> candidates, List<Outcome> outcomes, List<LeadRejection> rejections) {
+        if (candidates.isEmpty()) {
+            return candidates;
+        }
+        Set<ObjectId> ids = new HashSet<>();
+        Set<String> emails = new HashSet<>();
+        for (Outcome outcome : outcomes) {
+            if (outcome.reason() == null) {
+                if (outcome.lead().getId() != null) {
+                    ids.add(outcome.lead().getId());
+                }
+                emails.add(outcome.lead().getEmail());
+                emails.add(outcome.email());
+            }
+        }
+
+        Set<ObjectId> contactedIds = new HashSet<>();
+        Set<String> contactedEmails = new HashSet<>();
+        List<Lead> contactedLeads = new ArrayList<>(leadRepository.findContactedLeadsByIdOrEmail(ids, emails));
+        contactedLeads.addAll(leadArchiveService.findArchivedByIdOrEmail(ids, emails));
+        for (Lead contacted : contactedLeads) {
+            contactedIds.add(contacted.getId());
+            String email = normalizeEmail(contacted.getEmail());
+            if (email != null) {
+                contactedEmails.add(recipientKey(email));
+            }
+        }
+
+        List<Lead> validatedLeads = new ArrayList<>(candidates.size());
+        for (Lead lead : candidates) {
+            if (lead.isHaveContacted() || contactedIds.contains(lead.getId()) || contactedEmails.contains(recipientKey(lead.getEmail()))) {
+                rejections.add(rejection(lead, lead.getEmail(), LeadRejectionReason.ALREADY_CONTACTED));
+            } else {
+                validatedLeads.add(lead);
+            }
+        }
+        return validatedLeads;
+    }
+
+    private static LeadRejection rejection(Lead lead, String email, LeadRejectionReason reason) {
+        if (lead == null) {
+            return new LeadRejection(null, null, null, reason);
+        }
+        String leadId = lead.getId() == null ? null : lead.getId().toHexString();
+        return new LeadRejection(leadId, lead.getBusinessName(), email, reason);
+    }
+
+    /**
+     * Mail providers treat the local part case-insensitively in practice, so recipients are compared that way.
+     */
+    private static String recipientKey(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    static boolean isPlaceholder(String email) {
+        String value = email.trim().toLowerCase(Locale.ROOT);
+        if (PLACEHOLDER_EMAILS.contains(value)) {
+            return true;
+        }
+        int at = value.lastIndexOf('@');
+        return at >= 0 && PLACEHOLDER_DOMAINS.contains(value.substring(at + 1));
+    }
+
+    /**
+     * Trims the address, lower-cases the domain and converts internationalized domains to ASCII. The local part
+     * is left untouched since it may be case-sensitive.
+     *
+     * @param email email address
+     *
+     * @return normalized email, or {@code null} if the address is not syntactically valid
+     */
+    static String normalizeEmail(String email) {
+        if (email == null) {
+            return null;
+        }
+        String value = email.trim();
+        int at = value.lastIndexOf('@');
+        if (at <= 0 || at > MAX_LOCAL_PART_LENGTH || at == value.length() - 1) {
+            return null;
+        }
+        String domain = value.substring(at + 1);
+        if (domain.endsWith(".")) {
+            domain = domain.substring(0, domain.length() - 1);
+        }
+        try {
+            domain = IDN.toASCII(domain).toLowerCase(Locale.ROOT);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        String normalized = value.substring(0, at) + "@" + domain;
+        if (normalized.length() > MAX_EMAIL_LENGTH || !EMAIL_PATTERN.matcher(normalized).matches()) {
+            return null;
+        }
+        return normalized;
+    }
+
+    private record Outcome(Lead lead, String email, LeadRejectionReason reason) {}
+}
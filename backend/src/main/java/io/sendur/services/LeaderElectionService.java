@@ -0,0 +1,149 @@
+package io.sendur.services;
+
+import io.sendur.configurations.LeaderElectionConfigurationProperties;
+import io.sendur.models.Lease;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Elects a single leader among all running {@code SiteApplication} instances using a lease document in MongoDB.
+ * The leader renews its lease every {@code renewIntervalMillis}; if it stops renewing, any other instance can take
+ * the lease over once it has expired. Singleton background work should be wrapped in {@link #runIfLeader}, so it
+ * runs on exactly one node. Work that runs longer than the lease should also check {@link #isLeader()} between
+ * batches and stop once leadership is lost.
+ * <p>
+ * Renewal runs on its own thread rather than the shared {@code @Scheduled} pool, so a long archive run or
+ * reconciliation can't delay it past the lease expiry.
+ * <p>
+ * Lease expiry is compared against each instance's own clock, so the lease duration must be comfortably larger than
+ * the clock skew between nodes.
+ */
+@Service
+public class LeaderElectionService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(LeaderElectionService.class);
+
+    private static final String ID = "_id";
+    private static final String OWNER = "owner";
+    private static final String EXPIRES_AT = "expiresAt";
+
+    private final MongoTemplate mongoTemplate;
+    private final LeaderElectionConfigurationProperties properties;
+
+    private final ScheduledExecutorService renewalExecutor = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "leader-election");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile boolean leader;
+    private volatile Instant leaseExpiresAt = Instant.EPOCH;
+
+    @Autowired
+    public LeaderElectionService(MongoTemplate mongoTemplate, LeaderElectionConfigurationProperties properties) {
+        this.mongoTemplate = mongoTemplate;
+        this.properties = properties;
+    }
+
+    /**
+     * @return true if this instance holds an unexpired lease
+     */
+    public boolean isLeader() {
+        return leader && Instant.now().isBefore(leaseExpiresAt);
+    }
+
+    public String getInstanceId() {
+        return properties.getInstanceId();
+    }
+
+    /**
+     * Runs the task only if this instance is currently the leader.
+     *
+     * @param taskName name used for logging
+     * @param task background work
+     *
+     * @return true if the task was run
+     */
+    public boolean runIfLeader(String taskName, Runnable task) {
+        if (!isLeader()) {
+            LOGGER.debug("Skipping {}, instance {} is not the leader", taskName, getInstanceId());
+            return false;
+        }
+        task.run();
+        return true;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        renewalExecutor.scheduleWithFixedDelay(this::renewLease, 0, properties.getRenewIntervalMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Acquires the lease if it is free or expired, or extends it if this instance already holds it. An upsert
+     * against a lease held by another instance fails with a duplicate key on {@code _id}, which simply means
+     * someone else is the leader.
+     */
+    public void renewLease() {
+        final Instant now = Instant.now();
+        final Instant expiresAt = now.plusMillis(properties.getLeaseDurationMillis());
+        Query query = new Query(Criteria.where(ID).is(properties.getLeaseName())
+                .orOperator(Criteria.where(OWNER).is(getInstanceId()), Criteria.where(EXPIRES_AT).lt(now)));
+        Update update = new Update()
+                .set(OWNER, getInstanceId())
+                .set(EXPIRES_AT, expiresAt);
+        try {
+            Lease lease = mongoTemplate.findAndModify(query, update,
+                    FindAndModifyOptions.options().upsert(true).returnNew(true), Lease.class);
+            boolean acquired = lease != null && getInstanceId().equals(lease.getOwner());
+            updateLeadership(acquired, expiresAt);
+        } catch (DuplicateKeyException e) {
+            updateLeadership(false, Instant.EPOCH);
+        } catch (Exception e) {
+            // keep the current lease until it runs out, we may just have missed one renewal
+            LOGGER.error("Failed to renew lease {}: {}", properties.getLeaseName(), e.getMessage());
+        }
+    }
+
+    /**
+     * Gives up the lease on shutdown, so another instance can take over without waiting for it to expire.
+     */
+    @PreDestroy
+    public void releaseLease() {
+        renewalExecutor.shutdownNow();
+        if (!leader) {
+            return;
+        }
+        try {
+            mongoTemplate.remove(new Query(Criteria.where(ID).is(properties.getLeaseName())
+                    .and(OWNER).is(getInstanceId())), Lease.class);
+        } catch (Exception e) {
+            LOGGER.warn("Failed to release lease {}: {}", properties.getLeaseName(), e.getMessage());
+        }
+        updateLeadership(false, Instant.EPOCH);
+    }
+
+    private void updateLeadership(boolean acquired, Instant expiresAt) {
+        if (acquired != leader) {
+            LOGGER.info("Instance {} {} leadership of {}", getInstanceId(), acquired ? "acquired" : "lost",
+                    properties.getLeaseName());
+        }
+        leaseExpiresAt = expiresAt;
+        leader = acquired;
+    }
+}
@@ -0,0 +1,163 @@
+package io.sendur.services;
+
+import io.sendur.configurations.N8NConfigurationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the number of in-flight calls to n8n webhooks using AIMD (additive increase, multiplicative decrease).
+ * Every call that completes under the latency threshold grows the limit by {@code 1/limit}, so roughly one extra
+ * permit per round of calls. Every call that fails, times out or runs over the threshold shrinks the limit by the
+ * backoff ratio. Callers that can't get a permit wait in a bounded queue and are rejected when it is full or the
+ * wait times out.
+ */
+@Component
+public class N8NConcurrencyLimiter {
+    private static final Logger LOGGER = LoggerFactory.getLogger(N8NConcurrencyLimiter.class);
+
+    private final N8NConfigurationProperties.Limiter properties;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition permitAvailable = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private long rejected;
+
+    @Autowired
+    public N8NConcurrencyLimiter(N8NConfigurationProperties n8NConfigurationProperties) {
+        this.properties = n8NConfigurationProperties.getLimiter();
+        this.limit = properties.getInitialLimit();
+    }
+
+    /**
+     * Acquires a permit, waiting in the queue if the limit has been reached. A successful acquire must be
+     * followed by exactly one call to {@link #onSuccess(long)} or {@link #onDropped()}.
+     *
+     * @return true if a permit was acquired, false if the caller was rejected
+     *
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public boolean acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight < currentLimit()) {
+                inFlight++;
+                return true;
+            }
+            if (queued >= properties.getMaxQueued()) {
+                return reject();
+            }
+            queued++;
+            try {
+                long nanos = TimeUnit.MILLISECONDS.toNanos(properties.getQueueTimeoutMillis());
+                while (inFlight >= currentLimit()) {
+                    if (nanos <= 0) {
+                        return reject();
+                    }
+                    nanos = permitAvailable.awaitNanos(nanos);
+                }
+                inFlight++;
+                return true;
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a permit for a call that completed. Calls under the latency threshold increase the limit,
+     * slower calls are treated as a sign of overload.
+     *
+     * @param latencyMillis call latency
+     */
+    public void onSuccess(long latencyMillis) {
+        if (latencyMillis > properties.getLatencyThresholdMillis()) {
+            onDropped();
+            return;
+        }
+        lock.lock();
+        try {
+            // only grow when the limit is actually being used, otherwise idle periods inflate it
+            if (inFlight * 2 >= currentLimit()) {
+                limit = Math.min(properties.getMaxLimit(), limit + 1.0 / limit);
+            }
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Releases a permit for a call that failed or timed out and backs off the limit.
+     */
+    public void onDropped() {
+        lock.lock();
+        try {
+            limit = Math.max(properties.getMinLimit(), limit * properties.getBackoffRatio());
+            LOGGER.info("n8n concurrency limit reduced to {}", currentLimit());
+            release();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return currentLimit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRejected() {
+        lock.lock();
+        try {
+            return rejected;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+
+    private boolean reject() {
+        rejected++;
+        LOGGER.warn("n8n call rejected: {} in flight, {} queued, limit {}", inFlight, queued, currentLimit());
+        return false;
+    }
+
+    private void release() {
+        inFlight--;
+        permitAvailable.signalAll();
+    }
+}
@@ -0,0 +1,69 @@
+package io.sendur.services;
+
+import io.sendur.configurations.N8NConfigurationProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Bounds retries of n8n webhook calls that never reached n8n. Each successful call deposits {@code budgetRatio} of a retry and
+ * each retry withdraws one, so retries can never amount to more than that fraction of real traffic. When n8n is
+ * down the budget drains quickly and callers fail fast instead of multiplying the load.
+ */
+@Component
+public class N8NRetryBudget {
+
+    private final N8NConfigurationProperties.Retry properties;
+
+    private double balance;
+    private long retries;
+
+    @Autowired
+    public N8NRetryBudget(N8NConfigurationProperties n8NConfigurationProperties) {
+        this.properties = n8NConfigurationProperties.getRetry();
+        this.balance = properties.getMaxBudget();
+    }
+
+    public synchronized void onSuccess() {
+        balance = Math.min(properties.getMaxBudget(), balance + properties.getBudgetRatio());
+    }
+
+    /**
+     * Withdraws one retry from the budget.
+     *
+     * @param attempt the attempt that just failed, starting at 1
+     *
+     * @return true if another attempt may be made
+     */
+    public synchronized boolean tryRetry(int attempt) {
+        if (attempt >= properties.getMaxAttempts() || balance < 1) {
+            return false;
+        }
+        balance--;
+        retries++;
+        return true;
+    }
+
+    /**
+     * Exponential backoff with full jitter: a random delay between zero and {@code baseDelay * 2^(attempt - 1)},
+     * capped at {@code maxDelay}.
+     *
+     * @param attempt the attempt that just failed, starting at 1
+     *
+     * @return delay in milliseconds before the next attempt
+     */
+    public long backoffMillis(int attempt) {
+        long ceiling = Math.min(properties.getMaxDelayMillis(),
+                properties.getBaseDelayMillis() << Math.min(attempt - 1, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    public synchronized long getRetries() {
+        return retries;
+    }
+
+    public synchronized double getBalance() {
+        return balance;
+    }
+}
@@ -3,16 +3,22 @@ package io.sendur.services;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.ObservationExecChainHandler;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import io.sendur.configurations.N8NConfigurationProperties;
 import io.sendur.models.ApprovedLeadsWebhookResult;
 import io.sendur.models.Lead;
+import io.sendur.models.N8NLimiterSnapshot;
 import io.sendur.models.WebhookMessageId;
-import io.sendur.repositories.LeadRepository;
+import jakarta.annotation.PreDestroy;
+import org.apache.hc.client5.http.ConnectTimeoutException;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
 import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.ChainElement;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.core5.http.ClassicHttpResponse;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
 import org.apache.hc.core5.http.io.entity.EntityUtils;
 import org.apache.hc.core5.http.io.entity.StringEntity;
 import org.slf4j.Logger;
@@ -21,7 +27,10 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.ConnectException;
 import java.net.Socket;
+import java.net.UnknownHostException;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
@@ -34,23 +43,57 @@ public class N8NService {
     private static final String APPLICATION_JSON = "application/json";
     private static final String APP_NAME = "Sendur";
 
-    private final LeadRepository leadRepository;
+    /**
+     * Synthetic status codes for calls that never got a response from n8n.
+     */
+    private static final int REJECTED = 429;
+    private static final int BAD_GATEWAY = 502;
+    private static final int UNAVAILABLE = 503;
+    private static final int GATEWAY_TIMEOUT = 504;
+
+    private final LeadService leadService;
     private final N8NConfigurationProperties n8NConfigurationProperties;
+    private final N8NConcurrencyLimiter concurrencyLimiter;
+    private final N8NRetryBudget retryBudget;
+    private final ObservationRegistry observationRegistry;
+    private final CloseableHttpClient client;
 
     @Autowired
-    public N8NService(LeadRepository leadRepository, N8NConfigurationProperties n8NConfigurationProperties) {
-        this.leadRepository = leadRepository;
+    public N8NService(LeadService leadService, N8NConfigurationProperties n8NConfigurationProperties,
+                      N8NConcurrencyLimiter concurrencyLimiter, N8NRetryBudget retryBudget,
+                      ObservationRegistry observationRegistry) {
+        this.leadService = leadService;
         this.n8NConfigurationProperties = n8NConfigurationProperties;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.retryBudget = retryBudget;
+        this.observationRegistry = observationRegistry;
+        final int maxConnections = n8NConfigurationProperties.getLimiter().getMaxLimit();
+        // observing each HTTP exchange also injects the trace context headers, so n8n can pass them back on callbacks
+        this.client = HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        .setMaxConnTotal(maxConnections)
+                        .setMaxConnPerRoute(maxConnections)
+                        .build())
+                .addExecInterceptorAfter(ChainElement.RETRY.name(), "micrometer-observation",
+                        new ObservationExecChainHandler(observationRegistry))
+                .build();
     }
 
     public ApprovedLeadsWebhookResult sendApprovedEmailsToLeads(List<Lead> leads) {
-        try (ClassicHttpResponse response = hitN8NApprovedEmailWebhook(leads)) {
-            int statusCode = response.getCode();
-            String content = EntityUtils.toString(response.getEntity());
-            ObjectMapper mapper = new ObjectMapper();
-            List<WebhookMessageId> webhookMessageIdList = mapper.readValue(content, new TypeReference<>() {});
+        return Observation.createNotStarted("n8n.approved-emails", observationRegistry)
+                .highCardinalityKeyValue("leads.sent", String.valueOf(leads.size()))
+                .observe(() -> sendAndSaveApprovedLeads(leads));
+    }
+
+    private ApprovedLeadsWebhookResult sendAndSaveApprovedLeads(List<Lead> leads) {
+        try {
+            WebhookResponse response = hitN8NApprovedEmailWebhook(leads);
+            int statusCode = response.statusCode();
+            List<WebhookMessageId> webhookMessageIdList = null;
             if (statusCode == 200) {
-                leadRepository.saveAll(leads);
+                ObjectMapper mapper = new ObjectMapper();
+                webhookMessageIdList = mapper.readValue(response.content(), new TypeReference<>() {});
+                leadService.saveContactedLeads(leads);
             }
             return new ApprovedLeadsWebhookResult(statusCode, webhookMessageIdList);
         } catch (Exception e) {
@@ -59,34 +102,118 @@ public class N8NService {
         }
     }
 
-    private ClassicHttpResponse hitN8NApprovedEmailWebhook(List<Lead> leads) throws JsonProcessingException {
+    public N8NLimiterSnapshot limiterSnapshot() {
+        return new N8NLimiterSnapshot(
+                concurrencyLimiter.getLimit(),
+                concurrencyLimiter.getInFlight(),
+                concurrencyLimiter.getQueued(),
+                concurrencyLimiter.getRejected(),
+                retryBudget.getRetries(),
+                retryBudget.getBalance());
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        client.close();
+    }
+
+    private WebhookResponse hitN8NApprovedEmailWebhook(List<Lead> leads) throws JsonProcessingException {
         return postN8NWebhook(n8NConfigurationProperties.getApprovedEmailsWebhook(),
                 n8NConfigurationProperties.getTimeout(), leads);
     }
 
-    private ClassicHttpResponse postN8NWebhook(String webhook, long timeout, Object object) throws JsonProcessingException {
+    /**
+     * Posts to an n8n webhook through the {@link N8NConcurrencyLimiter}. The webhook sends emails and is not
+     * idempotent, so a call is only retried, with jittered backoff while the {@link N8NRetryBudget} allows it, when
+     * the request provably never reached n8n: the socket probe failed or the connection couldn't be opened. A 5xx
+     * or a response timeout may mean the emails were already sent, those are returned to the caller as they are.
+     * Calls rejected by the limiter are never retried, n8n is already at capacity.
+     */
+    private WebhookResponse postN8NWebhook(String webhook, long timeout, Object object) throws JsonProcessingException {
         String json = new ObjectMapper().writeValueAsString(object);
         RequestConfig config = RequestConfig.custom()
                 .setResponseTimeout(timeout, TimeUnit.SECONDS)
                 .build();
-        try (CloseableHttpClient client = HttpClients.custom()
-                .setDefaultRequestConfig(config)
-                .build()) {
-            HttpPost post = new HttpPost(webhook);
-            post.setHeader(CONTENT_TYPE, APPLICATION_JSON);
-            post.setHeader(USER_AGENT, APP_NAME);
-            post.setEntity(new StringEntity(json));
-
-            if (n8nSocketAccepting()) {
-                return client.execute(post);
+        HttpPost post = new HttpPost(webhook);
+        post.setConfig(config);
+        post.setHeader(CONTENT_TYPE, APPLICATION_JSON);
+        post.setHeader(USER_AGENT, APP_NAME);
+        post.setEntity(new StringEntity(json));
+
+        int attempt = 1;
+        WebhookResponse response = executeLimited(webhook, post);
+        while (response.retryable() && retryBudget.tryRetry(attempt)) {
+            long delay = retryBudget.backoffMillis(attempt);
+            LOGGER.warn("n8n webhook attempt {} couldn't reach n8n, retrying in {}ms", attempt, delay);
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return response;
             }
+            attempt++;
+            response = executeLimited(webhook, post);
+        }
+        return response;
+    }
+
+    private WebhookResponse executeLimited(String webhook, HttpPost post) {
+        Observation acquireObservation = Observation.start("n8n.limiter.acquire", observationRegistry);
+        try {
+            if (!concurrencyLimiter.acquire()) {
+                acquireObservation.lowCardinalityKeyValue("outcome", "rejected");
+                return WebhookResponse.rejected();
+            }
+            acquireObservation.lowCardinalityKeyValue("outcome", "acquired");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquireObservation.error(e);
+            return WebhookResponse.rejected();
+        } finally {
+            acquireObservation.stop();
+        }
+
+        final long start = System.nanoTime();
+        WebhookResponse response = null;
+        try {
+            response = execute(webhook, post);
+            return response;
+        } finally {
+            // the permit is released exactly once, also when the call throws
+            if (response == null || response.statusCode() >= 500) {
+                concurrencyLimiter.onDropped();
+            } else {
+                concurrencyLimiter.onSuccess(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                retryBudget.onSuccess();
+            }
+        }
+    }
+
+    private WebhookResponse execute(String webhook, HttpPost post) {
+        try {
+            if (!n8nSocketAccepting()) {
+                return WebhookResponse.unreachable();
+            }
+            return client.execute(post, httpResponse -> new WebhookResponse(httpResponse.getCode(),
+                    EntityUtils.toString(httpResponse.getEntity()), false));
+        } catch (ConnectException | ConnectTimeoutException | UnknownHostException e) {
+            LOGGER.error("Couldn't connect to N8N webhook {}: {}", webhook, e.getMessage());
+            return WebhookResponse.unreachable();
+        } catch (InterruptedIOException e) {
+            LOGGER.error("Timed out sending POST request to N8N webhook {}: {}", webhook, e.getMessage());
+            return new WebhookResponse(GATEWAY_TIMEOUT, null, false);
         } catch (IOException | IllegalStateException e) {
             LOGGER.error("Failed to send POST request to N8N webhook {}: {}", webhook, e.getMessage());
+            return new WebhookResponse(BAD_GATEWAY, null, false);
         }
-        return null;
     }
 
     private boolean n8nSocketAccepting() throws IllegalStateException {
+        return Observation.createNotStarted("n8n.socket-probe", observationRegistry)
+                .observe(this::probeN8NSocket);
+    }
+
+    private boolean probeN8NSocket() throws IllegalStateException {
         final String host = n8NConfigurationProperties.getHost();
         final int port = n8NConfigurationProperties.getPort();
         try (Socket socket = new Socket(host, port)) {
@@ -101,4 +228,21 @@ public class N8NService {
         }
         return false;
     }
+
+    /**
+     * @param retryable true only if the request provably never reached n8n, which makes it safe to retry
+     */
+    private record WebhookResponse(int statusCode, String content, boolean retryable) {
+
+        static WebhookResponse unreachable() {
+            return new WebhookResponse(UNAVAILABLE, null, true);
+        }
+
+        /**
+         * Never sent either, but n8n is already at capacity, so retrying would only add load.
+         */
+        static WebhookResponse rejected() {
+            return new WebhookResponse(REJECTED, null, false);
+        }
+    }
 }
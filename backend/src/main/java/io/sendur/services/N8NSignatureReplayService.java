@@ -0,0 +1,65 @@
+package io.sendur.services;
+
+import io.sendur.configurations.N8NConfigurationProperties;
+import io.sendur.models.SeenSignature;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Replay protection for signed n8n callbacks, shared by every {@code SiteApplication} instance. Accepted
+ * signatures are stored as {@link SeenSignature} documents and a second insert of the same signature fails on the
+ * {@code _id} index, no matter which instance the replay reaches. MongoDB expires the documents itself once they
+ * fall outside {@code n8n.signature-tolerance-seconds}, so nothing is scanned or evicted per request.
+ */
+@Service
+public class N8NSignatureReplayService {
+
+    private static final String EXPIRES_AT = "expiresAt";
+
+    private final MongoTemplate mongoTemplate;
+    private final N8NConfigurationProperties n8NConfigurationProperties;
+
+    @Autowired
+    public N8NSignatureReplayService(MongoTemplate mongoTemplate, N8NConfigurationProperties n8NConfigurationProperties) {
+        this.mongoTemplate = mongoTemplate;
+        this.n8NConfigurationProperties = n8NConfigurationProperties;
+    }
+
+    /**
+     * Each document carries its own expiry, so the index options never depend on configuration and changing
+     * {@code n8n.signature-tolerance-seconds} doesn't conflict with an index created under the old value.
+     */
+    @PostConstruct
+    public void ensureIndexes() {
+        mongoTemplate.indexOps(SeenSignature.class).ensureIndex(new Index()
+                .on(EXPIRES_AT, Sort.Direction.ASC)
+                .expire(Duration.ZERO));
+    }
+
+    /**
+     * Records a verified signature. A request signed at {@code signedAt} is accepted until
+     * {@code signedAt + tolerance}, so that is how long its signature is kept.
+     *
+     * @param signature hex encoded signature, lower-case
+     * @param signedAt when the request was signed
+     *
+     * @return true the first time a signature is seen, false if it is a replay
+     */
+    public boolean markSeen(String signature, Instant signedAt) {
+        try {
+            Instant expiresAt = signedAt.plusSeconds(n8NConfigurationProperties.getSignatureToleranceSeconds());
+            mongoTemplate.insert(new SeenSignature(signature, signedAt, expiresAt));
+            return true;
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+    }
+}
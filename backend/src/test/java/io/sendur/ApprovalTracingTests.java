@@ -0,0 +1,177 @@
+package io.sendur;
+
+import com.sun.net.httpserver.HttpServer;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.sdk.testing.exporter.InMemorySpanExporter;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.oauth2Login;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Approves a lead against a stand-in n8n webhook and checks that the whole approval is recorded as one trace:
+ * request, validation, Mongo commands, the n8n call and saving the contacted lead.
+ */
+@SpringBootTest(properties = {"management.tracing.sampling.probability=1.0", "n8n.timeout=5"})
+@ActiveProfiles("test")
+@AutoConfigureMockMvc
+@Testcontainers(disabledWithoutDocker = true)
+class ApprovalTracingTests {
+
+    private static final AttributeKey<String> DB_SYSTEM = AttributeKey.stringKey("db.system");
+    private static final String APPROVED_LEAD = """
+            [{"businessName": "Neighborhood Painting", "email": "hello@neighborhoodpainting.com",
+              "phone": "(425) 552-1024", "city": "Lake Stevens", "website": "Not available",
+              "emailDraft": "Hi there!", "haveContacted": false}]
+            """;
+
+    @Container
+    static final MongoDBContainer MONGO = new MongoDBContainer("mongo:7.0");
+
+    private static final AtomicReference<String> RECEIVED_TRACEPARENT = new AtomicReference<>();
+    private static final HttpServer N8N = startN8N();
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private InMemorySpanExporter spanExporter;
+
+    @Autowired
+    private SdkTracerProvider tracerProvider;
+
+    @DynamicPropertySource
+    static void properties(DynamicPropertyRegistry registry) {
+        registry.add("spring.data.mongodb.uri", MONGO::getReplicaSetUrl);
+        registry.add("n8n.port", () -> N8N.getAddress().getPort());
+        registry.add("n8n.approved-emails-webhook",
+                () -> "http://localhost:" + N8N.getAddress().getPort() + "/webhook/send-approved-emails");
+    }
+
+    @AfterAll
+    static void stopN8N() {
+        N8N.stop(0);
+    }
+
+    @Test
+    void approvalIsRecordedAsOneSpanTree() throws Exception {
+        mockMvc.perform(post("/sendur/api/leads/approve-lead-emails")
+                        .with(oauth2Login())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(APPROVED_LEAD))
+                .andExpect(status().isOk());
+        tracerProvider.forceFlush().join(10, TimeUnit.SECONDS);
+
+        List<SpanData> spans = spanExporter.getFinishedSpanItems();
+        SpanData request = single(spans, span -> span.getKind() == SpanKind.SERVER);
+        List<SpanData> trace = spans.stream()
+                .filter(span -> span.getTraceId().equals(request.getTraceId()))
+                .toList();
+        Map<String, SpanData> bySpanId = trace.stream()
+                .collect(Collectors.toMap(SpanData::getSpanId, Function.identity()));
+
+        SpanData validation = named(trace, "lead.validation");
+        SpanData approvedEmails = named(trace, "n8n.approved-emails");
+        SpanData socketProbe = named(trace, "n8n.socket-probe");
+        SpanData saveContacted = named(trace, "leads.save-contacted");
+        SpanData webhookCall = single(trace, span -> span.getKind() == SpanKind.CLIENT
+                && span.getAttributes().get(DB_SYSTEM) == null);
+
+        assertTrue(isDescendant(validation, request, bySpanId));
+        assertTrue(isDescendant(approvedEmails, request, bySpanId));
+        assertTrue(isDescendant(socketProbe, approvedEmails, bySpanId));
+        assertTrue(isDescendant(webhookCall, approvedEmails, bySpanId));
+        assertTrue(isDescendant(saveContacted, approvedEmails, bySpanId));
+
+        List<SpanData> mongoCommands = trace.stream()
+                .filter(span -> "mongodb".equals(span.getAttributes().get(DB_SYSTEM)))
+                .toList();
+        assertTrue(mongoCommands.stream().anyMatch(span -> isDescendant(span, validation, bySpanId)));
+        assertTrue(mongoCommands.stream().anyMatch(span -> isDescendant(span, saveContacted, bySpanId)));
+
+        String traceparent = RECEIVED_TRACEPARENT.get();
+        assertNotNull(traceparent);
+        assertTrue(traceparent.contains(request.getTraceId()));
+    }
+
+    private static SpanData named(List<SpanData> spans, String name) {
+        return single(spans, span -> span.getName().equals(name));
+    }
+
+    private static SpanData single(List<SpanData> spans, Predicate<SpanData> predicate) {
+        List<SpanData> matches = spans.stream().filter(predicate).toList();
+        assertEquals(1, matches.size(), () -> "Expected exactly one matching span in " + spans);
+        return matches.get(0);
+    }
+
+    private static boolean isDescendant(SpanData span, SpanData ancestor, Map<String, SpanData> bySpanId) {
+        SpanData parent = bySpanId.get(span.getParentSpanId());
+        while (parent != null) {
+            if (parent.getSpanId().equals(ancestor.getSpanId())) {
+                return true;
+            }
+            parent = bySpanId.get(parent.getParentSpanId());
+        }
+        return false;
+    }
+
+    private static HttpServer startN8N() {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/webhook/send-approved-emails", exchange -> {
+                RECEIVED_TRACEPARENT.set(exchange.getRequestHeaders().getFirst("traceparent"));
+                exchange.getRequestBody().readAllBytes();
+                byte[] body = "[{\"messageId\": \"message-1\"}]".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json");
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream outputStream = exchange.getResponseBody()) {
+                    outputStream.write(body);
+                }
+            });
+            server.start();
+            return server;
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @TestConfiguration
+    static class InMemoryExporterConfiguration {
+
+        @Bean
+        InMemorySpanExporter inMemorySpanExporter() {
+            return InMemorySpanExporter.create();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package io.sendur;
+
+import io.sendur.services.LeaderElectionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.security.web.context.HttpSessionSecurityContextRepository;
+import org.springframework.session.Session;
+import org.springframework.session.SessionRepository;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs several {@link SiteApplication} instances in one JVM against a shared MongoDB, the same way they would run
+ * behind a load balancer.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class MultiInstanceTests {
+
+    private static final int INSTANCES = 3;
+    private static final long LEASE_DURATION_MILLIS = 2_000;
+
+    @Container
+    static final MongoDBContainer MONGO = new MongoDBContainer("mongo:7.0");
+
+    private final List<ConfigurableApplicationContext> instances = new ArrayList<>();
+
+    @AfterEach
+    void stopInstances() {
+        instances.forEach(ConfigurableApplicationContext::close);
+        instances.clear();
+    }
+
+    @Test
+    void sessionCreatedOnOneInstanceIsReadableOnAnother() {
+        startInstances(2);
+        SessionRepository<Session> first = sessionRepository(instances.get(0));
+        SessionRepository<Session> second = sessionRepository(instances.get(1));
+
+        DefaultOAuth2User user = new DefaultOAuth2User(AuthorityUtils.createAuthorityList("OIDC_USER"),
+                Map.of("sub", "admin"), "sub");
+        SecurityContext securityContext = new SecurityContextImpl(
+                new OAuth2AuthenticationToken(user, user.getAuthorities(), "cognito"));
+
+        Session session = first.createSession();
+        session.setAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY, securityContext);
+        first.save(session);
+
+        Session loaded = second.findById(session.getId());
+        assertNotNull(loaded);
+        SecurityContext loadedContext = loaded.getAttribute(HttpSessionSecurityContextRepository.SPRING_SECURITY_CONTEXT_KEY);
+        assertEquals("admin", loadedContext.getAuthentication().getName());
+    }
+
+    @Test
+    void exactlyOneInstanceIsLeaderAndLeadershipFailsOver() throws InterruptedException {
+        startInstances(INSTANCES);
+        awaitSingleLeader();
+
+        ConfigurableApplicationContext leader = instances.stream()
+                .filter(instance -> leaderElection(instance).isLeader())
+                .findFirst()
+                .orElseThrow();
+        leader.close();
+        instances.remove(leader);
+
+        awaitSingleLeader();
+    }
+
+    private void awaitSingleLeader() throws InterruptedException {
+        Instant deadline = Instant.now().plusMillis(LEASE_DURATION_MILLIS * 5);
+        long leaders = 0;
+        while (Instant.now().isBefore(deadline)) {
+            leaders = instances.stream().filter(instance -> leaderElection(instance).isLeader()).count();
+            if (leaders == 1) {
+                return;
+            }
+            Thread.sleep(100);
+        }
+        fail("Expected exactly one leader but found " + leaders);
+    }
+
+    private void startInstances(int count) {
+        for (int i = 0; i < count; i++) {
+            instances.add(new SpringApplicationBuilder(SiteApplication.class)
+                    .profiles("test")
+                    .properties(instanceProperties("instance-" + i))
+                    .run());
+        }
+    }
+
+    /**
+     * Only what differs per instance or per run, the rest comes from {@code application-test.properties}.
+     */
+    private static Map<String, Object> instanceProperties(String instanceId) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("server.port", 0);
+        properties.put("spring.data.mongodb.uri", MONGO.getReplicaSetUrl());
+        properties.put("leader-election.instance-id", instanceId);
+        properties.put("leader-election.lease-duration-millis", LEASE_DURATION_MILLIS);
+        properties.put("leader-election.renew-interval-millis", LEASE_DURATION_MILLIS / 4);
+        properties.put("n8n.approved-emails-webhook", "http://localhost:5678/webhook/test");
+        properties.put("n8n.port", 5678);
+        properties.put("n8n.timeout", 1);
+        return properties;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static SessionRepository<Session> sessionRepository(ConfigurableApplicationContext context) {
+        return context.getBean(SessionRepository.class);
+    }
+
+    private static LeaderElectionService leaderElection(ConfigurableApplicationContext context) {
+        return context.getBean(LeaderElectionService.class);
+    }
+}
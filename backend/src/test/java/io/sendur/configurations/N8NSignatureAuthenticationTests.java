@@ -0,0 +1,218 @@
+package io.sendur.configurations;
+
+import io.sendur.controllers.LeadsController;
+import io.sendur.models.CognitoLogoutHandler;
+import io.sendur.services.LeadService;
+import io.sendur.services.LeadStatsService;
+import io.sendur.services.LeadValidationService;
+import io.sendur.services.N8NService;
+import io.sendur.services.N8NSignatureReplayService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.security.web.FilterChainProxy;
+import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs n8n callbacks through the real security filter chains, without a datastore.
+ */
+@WebMvcTest(controllers = LeadsController.class, properties = {
+        "n8n.webhook-secret=" + N8NSignatureAuthenticationTests.SECRET,
+        "n8n.max-callback-body-bytes=1024"
+})
+@ActiveProfiles("test")
+@Import(SecurityConfiguration.class)
+class N8NSignatureAuthenticationTests {
+    static final String SECRET = "n8n-test-secret";
+
+    private static final String UPDATE_EMAILS = "/sendur/api/leads/update-emails";
+    private static final String NO_EMAIL_SCHEDULER = "/sendur/api/leads/no-email-scheduler";
+    private static final String FIND_ALL = "/sendur/api/leads/find-all";
+    private static final String BODY = "[{\"businessName\": \"Neighborhood Painting\", \"email\": \"hello@neighborhoodpainting.com\"}]";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private FilterChainProxy filterChainProxy;
+
+    @MockitoBean
+    private LeadService leadService;
+
+    @MockitoBean
+    private N8NService n8NService;
+
+    @MockitoBean
+    private LeadValidationService leadValidationService;
+
+    @MockitoBean
+    private LeadStatsService leadStatsService;
+
+    @MockitoBean
+    private N8NSignatureReplayService replayService;
+
+    @MockitoBean
+    private CognitoLogoutHandler cognitoLogoutHandler;
+
+    @BeforeEach
+    void setUp() {
+        Set<String> seen = ConcurrentHashMap.newKeySet();
+        when(replayService.markSeen(any(), any())).thenAnswer(invocation -> seen.add(invocation.getArgument(0)));
+        when(leadService.loadLeads(anyList())).thenReturn(1);
+        when(leadService.loadLeadsWithNoEmail()).thenReturn(List.of());
+    }
+
+    @Test
+    void validSignatureIsAcceptedWithoutSession() throws Exception {
+        MvcResult result = mockMvc.perform(signed(post(UPDATE_EMAILS), now(), SECRET, BODY).content(BODY))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.SET_COOKIE))
+                .andReturn();
+
+        assertNull(result.getRequest().getSession(false));
+    }
+
+    @Test
+    void wrongSignatureIsRejected() throws Exception {
+        mockMvc.perform(signed(post(UPDATE_EMAILS), now(), "another-secret", BODY).content(BODY))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void tamperedBodyIsRejected() throws Exception {
+        mockMvc.perform(signed(post(UPDATE_EMAILS), now(), SECRET, BODY).content(BODY.replace("hello@", "evil@")))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void staleTimestampIsRejected() throws Exception {
+        long stale = now() - 301;
+        mockMvc.perform(signed(post(UPDATE_EMAILS), stale, SECRET, BODY).content(BODY))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void replayedSignatureIsRejected() throws Exception {
+        long timestamp = now();
+        mockMvc.perform(signed(post(UPDATE_EMAILS), timestamp, SECRET, BODY).content(BODY))
+                .andExpect(status().isOk());
+        mockMvc.perform(signed(post(UPDATE_EMAILS), timestamp, SECRET, BODY).content(BODY))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void unsignedRequestGetsUnauthorizedInsteadOfLoginRedirect() throws Exception {
+        MvcResult result = mockMvc.perform(post(UPDATE_EMAILS).contentType(MediaType.APPLICATION_JSON).content(BODY))
+                .andExpect(status().isUnauthorized())
+                .andExpect(header().doesNotExist(HttpHeaders.LOCATION))
+                .andReturn();
+
+        assertNull(result.getRequest().getSession(false));
+    }
+
+    @Test
+    void oversizedBodyIsRejectedBeforeVerification() throws Exception {
+        String body = "[" + "\"x\",".repeat(300) + "\"x\"]";
+        mockMvc.perform(signed(post(UPDATE_EMAILS), now(), SECRET, body).content(body))
+                .andExpect(status().isPayloadTooLarge());
+    }
+
+    @Test
+    void missingSecretRejectsEveryCallback() throws Exception {
+        N8NSignatureAuthenticationFilter filter = new N8NSignatureAuthenticationFilter(
+                new N8NConfigurationProperties(), replayService);
+        long timestamp = now();
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", UPDATE_EMAILS);
+        request.addHeader(N8NSignatureAuthenticationFilter.TIMESTAMP_HEADER, timestamp);
+        request.addHeader(N8NSignatureAuthenticationFilter.SIGNATURE_HEADER, sign(timestamp, "POST", UPDATE_EMAILS, SECRET, BODY));
+        request.setContent(BODY.getBytes(StandardCharsets.UTF_8));
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, response, chain);
+
+        assertEquals(HttpServletResponse.SC_UNAUTHORIZED, response.getStatus());
+        assertNull(chain.getRequest());
+    }
+
+    /**
+     * The signed chain runs fewer filters than the browser chain and never touches a session, while the browser
+     * chain creates one just to remember where to redirect after login.
+     */
+    @Test
+    void signedChainIsLighterThanBrowserChain() throws Exception {
+        List<SecurityFilterChain> chains = filterChainProxy.getFilterChains();
+        int n8nFilters = chains.get(0).getFilters().size();
+        int browserFilters = chains.get(1).getFilters().size();
+        assertTrue(n8nFilters < browserFilters, () -> n8nFilters + " n8n filters vs " + browserFilters + " browser filters");
+
+        MvcResult signed = mockMvc.perform(signed(get(NO_EMAIL_SCHEDULER), now(), SECRET, ""))
+                .andExpect(status().isOk())
+                .andReturn();
+        assertNull(signed.getRequest().getSession(false));
+
+        MvcResult browser = mockMvc.perform(get(FIND_ALL))
+                .andExpect(status().is3xxRedirection())
+                .andReturn();
+        assertNotNull(browser.getRequest().getSession(false));
+    }
+
+    private static MockHttpServletRequestBuilder signed(MockHttpServletRequestBuilder request, long timestamp,
+                                                        String secret, String body) {
+        MockHttpServletRequest built = request.buildRequest(new MockServletContext());
+        String path = built.getQueryString() == null
+                ? built.getRequestURI()
+                : built.getRequestURI() + "?" + built.getQueryString();
+        return request.contentType(MediaType.APPLICATION_JSON)
+                .header(N8NSignatureAuthenticationFilter.TIMESTAMP_HEADER, timestamp)
+                .header(N8NSignatureAuthenticationFilter.SIGNATURE_HEADER,
+                        sign(timestamp, built.getMethod(), path, secret, body));
+    }
+
+    private static String sign(long timestamp, String method, String path, String secret, String body) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            String payload = timestamp + "." + method + "." + path + "." + body;
+            return HexFormat.of().formatHex(mac.doFinal(payload.getBytes(StandardCharsets.UTF_8)));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static long now() {
+        return Instant.now().getEpochSecond();
+    }
+}
@@ -0,0 +1,87 @@
+package io.sendur.services;
+
+import com.mongodb.client.result.DeleteResult;
+import io.sendur.configurations.LeadArchiveConfigurationProperties;
+import io.sendur.models.ArchiveCheckpoint;
+import io.sendur.models.Lead;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LeadArchiveServiceTests {
+
+    private MongoTemplate mongoTemplate;
+    private LeadArchiveService leadArchiveService;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        LeaderElectionService leaderElectionService = mock(LeaderElectionService.class);
+        when(leaderElectionService.isLeader()).thenReturn(true);
+        when(mongoTemplate.bulkOps(any(BulkOperations.BulkMode.class), eq(Lead.class), anyString()))
+                .thenReturn(mock(BulkOperations.class));
+        leadArchiveService = new LeadArchiveService(mongoTemplate, leaderElectionService,
+                new LeadArchiveConfigurationProperties());
+    }
+
+    @Test
+    void removesOnlyLeadsThatStillQualify() {
+        Lead unchanged = contacted();
+        when(mongoTemplate.find(any(Query.class), eq(Lead.class))).thenReturn(List.of(unchanged), List.of());
+        when(mongoTemplate.remove(any(Query.class), eq(Lead.class))).thenReturn(DeleteResult.acknowledged(1));
+
+        assertEquals(1, leadArchiveService.archiveContactedLeads());
+
+        ArgumentCaptor<Query> removed = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(removed.capture(), eq(Lead.class));
+        String filter = removed.getValue().getQueryObject().toString();
+        assertTrue(filter.contains("haveContacted"), filter);
+        assertTrue(filter.contains(unchanged.getId().toHexString()), filter);
+        verify(mongoTemplate, never()).remove(any(Query.class), eq(Lead.class), eq(LeadArchiveService.ARCHIVE_COLLECTION));
+    }
+
+    @Test
+    void leadChangedDuringArchivingIsTakenBackOutOfTheArchive() {
+        Lead unchanged = contacted();
+        Lead changed = contacted();
+        when(mongoTemplate.find(any(Query.class), eq(Lead.class)))
+                .thenReturn(List.of(unchanged, changed), List.of(changed), List.of());
+        when(mongoTemplate.remove(any(Query.class), eq(Lead.class))).thenReturn(DeleteResult.acknowledged(1));
+
+        assertEquals(1, leadArchiveService.archiveContactedLeads());
+
+        ArgumentCaptor<Query> unarchived = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).remove(unarchived.capture(), eq(Lead.class), eq(LeadArchiveService.ARCHIVE_COLLECTION));
+        assertEquals(List.of(changed.getId()), unarchived.getValue().getQueryObject().get("_id", Document.class).get("$in"));
+        ArgumentCaptor<ArchiveCheckpoint> checkpoint = ArgumentCaptor.forClass(ArchiveCheckpoint.class);
+        verify(mongoTemplate, atLeastOnce()).save(checkpoint.capture());
+        assertEquals(1, checkpoint.getValue().getArchived());
+    }
+
+    private static Lead contacted() {
+        return new Lead.Builder()
+                .id(new ObjectId())
+                .businessName("Neighborhood Painting")
+                .city("Lake Stevens")
+                .email("hello@neighborhoodpainting.com")
+                .haveContacted(true)
+                .build();
+    }
+}
@@ -0,0 +1,91 @@
+package io.sendur.services;
+
+import io.micrometer.observation.ObservationRegistry;
+import io.sendur.models.Lead;
+import io.sendur.repositories.LeadRepository;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class LeadServiceTests {
+
+    private MongoTemplate mongoTemplate;
+    private LeadStatsService leadStatsService;
+    private LeadService leadService;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        leadStatsService = mock(LeadStatsService.class);
+        leadService = new LeadService(mock(LeadRepository.class), mongoTemplate, leadStatsService,
+                mock(LeadArchiveService.class), ObservationRegistry.NOOP);
+    }
+
+    @Test
+    void lastByIdKeepsLastOccurrenceAndLeadsWithoutId() {
+        ObjectId id = new ObjectId();
+        Lead first = lead(id, "first@foo.com");
+        Lead other = lead(null, "other@foo.com");
+        Lead last = lead(id, "last@foo.com");
+        Lead another = lead(null, "another@foo.com");
+
+        assertEquals(List.of(other, last, another), LeadService.lastById(List.of(first, other, last, another)));
+    }
+
+    @Test
+    void duplicateIdInPayloadSubtractsStoredVersionOnce() {
+        ObjectId id = new ObjectId();
+        Lead stored = lead(id, "Not available");
+        when(mongoTemplate.findAndReplace(any(Query.class), any(Lead.class), any(FindAndReplaceOptions.class)))
+                .thenReturn(stored);
+
+        int loaded = leadService.loadLeads(List.of(lead(id, "first@foo.com"), lead(id, "last@foo.com")));
+
+        assertEquals(1, loaded);
+        verify(mongoTemplate, times(1)).findAndReplace(any(Query.class), any(Lead.class), any(FindAndReplaceOptions.class));
+        ArgumentCaptor<Collection<Lead>> before = captor();
+        ArgumentCaptor<Collection<Lead>> after = captor();
+        verify(leadStatsService).recordUpdated(before.capture(), after.capture());
+        assertEquals(List.of(stored), List.copyOf(before.getValue()));
+        assertEquals(List.of("last@foo.com"), after.getValue().stream().map(Lead::getEmail).toList());
+    }
+
+    @Test
+    void upsertedLeadIsCountedAsIngested() {
+        Lead lead = lead(new ObjectId(), "first@foo.com");
+
+        leadService.loadLeads(List.of(lead));
+
+        ArgumentCaptor<Collection<Lead>> ingested = captor();
+        verify(leadStatsService).recordIngested(ingested.capture());
+        assertEquals(List.of(lead), List.copyOf(ingested.getValue()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<Collection<Lead>> captor() {
+        return ArgumentCaptor.forClass(Collection.class);
+    }
+
+    private static Lead lead(ObjectId id, String email) {
+        return new Lead.Builder()
+                .id(id)
+                .businessName("Neighborhood Painting")
+                .city("Lake Stevens")
+                .email(email)
+                .build();
+    }
+}
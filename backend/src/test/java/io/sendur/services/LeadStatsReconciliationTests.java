@@ -0,0 +1,110 @@
+package io.sendur.services;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import io.micrometer.observation.ObservationRegistry;
+import io.sendur.models.Lead;
+import io.sendur.models.LeadRequest;
+import io.sendur.models.LeadStats;
+import io.sendur.repositories.LeadRepository;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.repository.support.MongoRepositoryFactory;
+import org.testcontainers.containers.MongoDBContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+/**
+ * Feeds the same leads through the incremental stats and the reconciliation pipeline and checks they agree.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class LeadStatsReconciliationTests {
+
+    @Container
+    static final MongoDBContainer MONGO = new MongoDBContainer("mongo:7.0");
+
+    private static MongoClient mongoClient;
+    private static MongoTemplate mongoTemplate;
+    private static LeadStatsService leadStatsService;
+    private static LeadService leadService;
+
+    @BeforeAll
+    static void setUp() {
+        mongoClient = MongoClients.create(MONGO.getReplicaSetUrl());
+        mongoTemplate = new MongoTemplate(mongoClient, "sendur-test");
+        leadStatsService = new LeadStatsService(mongoTemplate, mock(LeaderElectionService.class));
+        LeadRepository leadRepository = new MongoRepositoryFactory(mongoTemplate).getRepository(LeadRepository.class);
+        leadService = new LeadService(leadRepository, mongoTemplate, leadStatsService,
+                mock(LeadArchiveService.class), ObservationRegistry.NOOP);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        mongoClient.close();
+    }
+
+    @Test
+    void incrementalStatsMatchAggregation() throws Exception {
+        leadService.loadScheduledLeads(List.of(
+                request("Neighborhood Painting", "Lake Stevens"),
+                request("Corner Bakery", "St. Louis"),
+                request("Fix-It Plumbing", null)));
+        List<Lead> leads = leadService.loadAllLeads();
+        assertEquals(3, leads.size());
+
+        Lead painting = copy(leads.get(0), "first@neighborhoodpainting.com");
+        Lead paintingAgain = copy(leads.get(0), "hello@neighborhoodpainting.com");
+        leadService.loadLeads(List.of(painting, copy(leads.get(1), "Not available"), paintingAgain));
+        leadService.saveContactedLeads(List.of(copy(leads.get(0), "hello@neighborhoodpainting.com")));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> updates = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                Lead update = copy(leads.get(2), i % 2 == 0 ? "Not available" : "info" + i + "@fixitplumbing.com");
+                updates.add(executor.submit(() -> leadService.loadLeads(List.of(update))));
+            }
+            for (Future<Integer> update : updates) {
+                assertEquals(1, update.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        LeadStats incremental = leadStatsService.loadStats();
+        LeadStats aggregated = leadStatsService.aggregateStats();
+        assertEquals(3, aggregated.getTotal());
+        assertEquals(1, aggregated.getContacted());
+        assertTrue(LeadStatsService.sameCounts(aggregated, incremental),
+                () -> "incremental " + incremental + " but aggregated " + aggregated);
+    }
+
+    private static LeadRequest request(String businessName, String city) {
+        LeadRequest request = new LeadRequest();
+        request.setBusinessName(businessName);
+        request.setCity(city);
+        request.setEmail("Not available");
+        return request;
+    }
+
+    private static Lead copy(Lead lead, String email) {
+        return new Lead.Builder()
+                .id(lead.getId())
+                .businessName(lead.getBusinessName())
+                .city(lead.getCity())
+                .email(email)
+                .haveContacted(lead.isHaveContacted())
+                .build();
+    }
+}
@@ -0,0 +1,122 @@
+package io.sendur.services;
+
+import io.sendur.models.Lead;
+import io.sendur.models.LeadStats;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class LeadStatsServiceTests {
+
+    private MongoTemplate mongoTemplate;
+    private LeadStatsService leadStatsService;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        leadStatsService = new LeadStatsService(mongoTemplate, mock(LeaderElectionService.class));
+    }
+
+    @Test
+    void emailStatusTreatsBlankAndPlaceholderAsNotAvailable() {
+        assertEquals(LeadStatsService.EMAIL_NOT_AVAILABLE, LeadStatsService.emailStatus(null));
+        assertEquals(LeadStatsService.EMAIL_NOT_AVAILABLE, LeadStatsService.emailStatus("  "));
+        assertEquals(LeadStatsService.EMAIL_NOT_AVAILABLE, LeadStatsService.emailStatus(" not AVAILABLE "));
+        assertEquals(LeadStatsService.EMAIL_AVAILABLE, LeadStatsService.emailStatus("hello@neighborhoodpainting.com"));
+    }
+
+    @Test
+    void cityKeyIsSafeAsFieldName() {
+        assertEquals("Unknown", LeadStatsService.cityKey(null));
+        assertEquals("Unknown", LeadStatsService.cityKey(" "));
+        assertEquals("Lake Stevens", LeadStatsService.cityKey(" Lake Stevens "));
+        assertEquals("St． Louis", LeadStatsService.cityKey("St. Louis"));
+        assertEquals("＄ville", LeadStatsService.cityKey("$ville"));
+    }
+
+    @Test
+    void contributeCountsEveryDimension() {
+        Map<String, Long> deltas = new HashMap<>();
+        LeadStatsService.contribute(deltas, lead("St. Louis", "Not available", false), 1);
+        LeadStatsService.contribute(deltas, lead("St. Louis", "info@foo.com", true), 1);
+
+        assertEquals(Map.of(
+                "total", 2L,
+                "contacted", 1L,
+                "notContacted", 1L,
+                "byCity.St． Louis", 2L,
+                "byEmailStatus." + LeadStatsService.EMAIL_AVAILABLE, 1L,
+                "byEmailStatus." + LeadStatsService.EMAIL_NOT_AVAILABLE, 1L), deltas);
+
+        LeadStatsService.contribute(deltas, lead("St. Louis", "info@foo.com", true), -1);
+        assertEquals(0L, deltas.get("contacted"));
+        assertEquals(1L, deltas.get("total"));
+    }
+
+    @Test
+    void updateOnlyIncrementsWhatChanged() {
+        Lead before = lead("Lake Stevens", "Not available", false);
+        Lead after = lead("Lake Stevens", "hello@neighborhoodpainting.com", false);
+
+        leadStatsService.recordUpdated(List.of(before), List.of(after));
+
+        assertEquals(new Document()
+                .append("byEmailStatus." + LeadStatsService.EMAIL_NOT_AVAILABLE, -1L)
+                .append("byEmailStatus." + LeadStatsService.EMAIL_AVAILABLE, 1L), increments());
+    }
+
+    @Test
+    void unchangedLeadIsNotWritten() {
+        Lead lead = lead("Lake Stevens", "hello@neighborhoodpainting.com", true);
+
+        leadStatsService.recordUpdated(List.of(lead), List.of(lead));
+
+        verify(mongoTemplate, never()).findAndModify(any(Query.class), any(Update.class),
+                any(FindAndModifyOptions.class), eq(LeadStats.class));
+    }
+
+    @Test
+    void ingestedLeadsAreCountedOnTheirCreationDay() {
+        Lead lead = lead("Lake Stevens", "Not available", false);
+        lead.setId(new ObjectId("65543a000000000000000000"));
+
+        leadStatsService.recordIngested(List.of(lead));
+
+        Document increments = increments();
+        assertEquals(1L, increments.get("total"));
+        assertEquals(1L, increments.get("ingestedPerDay.2023-11-15"));
+    }
+
+    private Document increments() {
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).findAndModify(any(Query.class), update.capture(), any(FindAndModifyOptions.class),
+                eq(LeadStats.class));
+        return new Document(update.getValue().getUpdateObject().get("$inc", Document.class));
+    }
+
+    private static Lead lead(String city, String email, boolean haveContacted) {
+        return new Lead.Builder()
+                .businessName("Neighborhood Painting")
+                .city(city)
+                .email(email)
+                .haveContacted(haveContacted)
+                .build();
+    }
+}
@@ -0,0 +1,148 @@
+package io.sendur.services;
+
+import io.micrometer.observation.ObservationRegistry;
+import io.sendur.models.Lead;
+import io.sendur.models.LeadRejection;
+import io.sendur.models.LeadRejectionReason;
+import io.sendur.models.LeadValidationReport;
+import io.sendur.repositories.LeadRepository;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class LeadValidationServiceTests {
+
+    private LeadRepository leadRepository;
+    private LeadArchiveService leadArchiveService;
+    private LeadValidationService leadValidationService;
+
+    @BeforeEach
+    void setUp() {
+        leadRepository = mock(LeadRepository.class);
+        leadArchiveService = mock(LeadArchiveService.class);
+        when(leadRepository.findContactedLeadsByIdOrEmail(any(), any())).thenReturn(List.of());
+        when(leadArchiveService.findArchivedByIdOrEmail(any(), any())).thenReturn(List.of());
+        leadValidationService = new LeadValidationService(leadRepository, leadArchiveService, ObservationRegistry.NOOP);
+    }
+
+    @Test
+    void detectsPlaceholders() {
+        assertTrue(LeadValidationService.isPlaceholder("Not available"));
+        assertTrue(LeadValidationService.isPlaceholder("  N/A "));
+        assertTrue(LeadValidationService.isPlaceholder("info@Example.com"));
+        assertTrue(LeadValidationService.isPlaceholder("info@example.org"));
+        assertFalse(LeadValidationService.isPlaceholder("info@email.com"));
+        assertFalse(LeadValidationService.isPlaceholder("info@domain.com"));
+        assertFalse(LeadValidationService.isPlaceholder("hello@neighborhoodpainting.com"));
+    }
+
+    @Test
+    void normalizesDomainAndKeepsLocalPart() {
+        assertEquals("Info@foo.com", LeadValidationService.normalizeEmail("  Info@Foo.COM. "));
+        assertEquals("hello@xn--bcher-kva.de", LeadValidationService.normalizeEmail("hello@bücher.de"));
+    }
+
+    @Test
+    void rejectsInvalidSyntax() {
+        assertNull(LeadValidationService.normalizeEmail(null));
+        assertNull(LeadValidationService.normalizeEmail("no-at-sign.com"));
+        assertNull(LeadValidationService.normalizeEmail("@foo.com"));
+        assertNull(LeadValidationService.normalizeEmail("info@"));
+        assertNull(LeadValidationService.normalizeEmail("info@foo"));
+        assertNull(LeadValidationService.normalizeEmail("in fo@foo.com"));
+        assertNull(LeadValidationService.normalizeEmail("a".repeat(65) + "@foo.com"));
+    }
+
+    @Test
+    void rejectsEachInvalidLeadWithItsReason() {
+        LeadValidationReport report = leadValidationService.validate(Arrays.asList(
+                null,
+                lead("No Email", null),
+                lead("Placeholder", "Not available"),
+                lead("Bad Syntax", "info@foo"),
+                lead("Valid", "hello@neighborhoodpainting.com")));
+
+        assertEquals(List.of("hello@neighborhoodpainting.com"), emails(report.validatedLeads()));
+        assertEquals(List.of(LeadRejectionReason.MISSING_LEAD, LeadRejectionReason.MISSING_EMAIL,
+                LeadRejectionReason.PLACEHOLDER_EMAIL, LeadRejectionReason.INVALID_EMAIL), reasons(report));
+    }
+
+    @Test
+    void collapsesDuplicateRecipientsKeepingTheFirst() {
+        LeadValidationReport report = leadValidationService.validate(List.of(
+                lead("First", "Info@Foo.com"),
+                lead("Second", "info@FOO.COM"),
+                lead("Third", "other@foo.com")));
+
+        assertEquals(List.of("First", "Third"), report.validatedLeads().stream().map(Lead::getBusinessName).toList());
+        assertEquals(List.of(LeadRejectionReason.DUPLICATE_RECIPIENT), reasons(report));
+        assertEquals("info@FOO.COM", report.rejections().get(0).email());
+    }
+
+    @Test
+    void skipsLeadsContactedByIdOrRecipientIgnoringCase() {
+        ObjectId contactedId = new ObjectId();
+        Lead contactedById = lead("By Id", "new@bar.com");
+        contactedById.setId(contactedId);
+        when(leadRepository.findContactedLeadsByIdOrEmail(any(), any())).thenReturn(List.of(contacted(contactedId, "old@bar.com")));
+        when(leadArchiveService.findArchivedByIdOrEmail(any(), any())).thenReturn(List.of(contacted(new ObjectId(), "info@foo.com")));
+
+        Lead flagged = lead("Flagged", "flagged@baz.com");
+        flagged.setHaveContacted(true);
+        LeadValidationReport report = leadValidationService.validate(List.of(
+                contactedById,
+                lead("By Email", "Info@Foo.COM"),
+                flagged,
+                lead("Fresh", "fresh@baz.com")));
+
+        assertEquals(List.of("Fresh"), report.validatedLeads().stream().map(Lead::getBusinessName).toList());
+        assertEquals(List.of(LeadRejectionReason.ALREADY_CONTACTED, LeadRejectionReason.ALREADY_CONTACTED,
+                LeadRejectionReason.ALREADY_CONTACTED), reasons(report));
+    }
+
+    @Test
+    void validatesLargeSelectionsInParallel() {
+        List<Lead> leads = new ArrayList<>();
+        for (int i = 0; i < LeadValidationService.PARALLEL_THRESHOLD * 2; i++) {
+            leads.add(lead("Lead " + i, i % 2 == 0 ? "lead" + i + "@foo.com" : "Not available"));
+        }
+
+        LeadValidationReport report = leadValidationService.validate(leads);
+
+        assertEquals(LeadValidationService.PARALLEL_THRESHOLD, report.validatedLeads().size());
+        assertEquals("lead0@foo.com", report.validatedLeads().get(0).getEmail());
+        assertEquals(LeadValidationService.PARALLEL_THRESHOLD, report.rejections().size());
+    }
+
+    private static Lead lead(String businessName, String email) {
+        return new Lead.Builder()
+                .businessName(businessName)
+                .city("Lake Stevens")
+                .email(email)
+                .build();
+    }
+
+    private static Lead contacted(ObjectId id, String email) {
+        Lead lead = new Lead();
+        lead.setId(id);
+        lead.setEmail(email);
+        return lead;
+    }
+
+    private static List<String> emails(List<Lead> leads) {
+        return leads.stream().map(Lead::getEmail).toList();
+    }
+
+    private static List<LeadRejectionReason> reasons(LeadValidationReport report) {
+        return report.rejections().stream().map(LeadRejection::reason).toList();
+    }
+}
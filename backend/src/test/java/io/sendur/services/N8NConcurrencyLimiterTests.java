@@ -0,0 +1,139 @@
+package io.sendur.services;
+
+import io.sendur.configurations.N8NConfigurationProperties;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class N8NConcurrencyLimiterTests {
+
+    @Test
+    void growsAfterFastSuccessesUpToMaxLimit() throws InterruptedException {
+        N8NConcurrencyLimiter limiter = new N8NConcurrencyLimiter(properties(2, 1, 6, 0, 0));
+
+        for (int round = 0; round < 50; round++) {
+            int permits = limiter.getLimit();
+            for (int i = 0; i < permits; i++) {
+                assertTrue(limiter.acquire());
+            }
+            for (int i = 0; i < permits; i++) {
+                limiter.onSuccess(1);
+            }
+            assertTrue(limiter.getLimit() <= 6);
+        }
+
+        assertEquals(6, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void doesNotGrowWhileMostlyIdle() throws InterruptedException {
+        N8NConcurrencyLimiter limiter = new N8NConcurrencyLimiter(properties(8, 1, 32, 0, 0));
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.acquire());
+            limiter.onSuccess(1);
+        }
+
+        assertEquals(8, limiter.getLimit());
+    }
+
+    @Test
+    void shrinksOnDropsDownToMinLimit() throws InterruptedException {
+        N8NConcurrencyLimiter limiter = new N8NConcurrencyLimiter(properties(10, 2, 32, 0, 0));
+
+        assertTrue(limiter.acquire());
+        limiter.onDropped();
+        assertEquals(9, limiter.getLimit());
+
+        for (int i = 0; i < 100; i++) {
+            assertTrue(limiter.acquire());
+            limiter.onDropped();
+            assertTrue(limiter.getLimit() >= 2);
+        }
+
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void treatsSlowSuccessesAsDrops() throws InterruptedException {
+        N8NConcurrencyLimiter limiter = new N8NConcurrencyLimiter(properties(10, 1, 32, 0, 0));
+
+        assertTrue(limiter.acquire());
+        limiter.onSuccess(60_000);
+
+        assertEquals(9, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void rejectsWhenQueueIsFull() throws InterruptedException {
+        N8NConcurrencyLimiter limiter = new N8NConcurrencyLimiter(properties(1, 1, 1, 0, 10_000));
+
+        assertTrue(limiter.acquire());
+        assertFalse(limiter.acquire());
+
+        assertEquals(1, limiter.getRejected());
+        assertEquals(1, limiter.getInFlight());
+    }
+
+    @Test
+    void rejectsWhenQueueWaitTimesOut() throws InterruptedException {
+        N8NConcurrencyLimiter limiter = new N8NConcurrencyLimiter(properties(1, 1, 1, 1, 50));
+
+        assertTrue(limiter.acquire());
+        long start = System.nanoTime();
+        assertFalse(limiter.acquire());
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 50);
+        assertEquals(1, limiter.getRejected());
+        assertEquals(0, limiter.getQueued());
+    }
+
+    @Test
+    void queuedCallerGetsReleasedPermit() throws Exception {
+        N8NConcurrencyLimiter limiter = new N8NConcurrencyLimiter(properties(1, 1, 1, 1, 10_000));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            assertTrue(limiter.acquire());
+            CountDownLatch started = new CountDownLatch(1);
+            Future<Boolean> queued = executor.submit(() -> {
+                started.countDown();
+                return limiter.acquire();
+            });
+            started.await();
+            while (limiter.getQueued() == 0) {
+                Thread.onSpinWait();
+            }
+
+            limiter.onSuccess(1);
+
+            assertTrue(queued.get(5, TimeUnit.SECONDS));
+            assertEquals(1, limiter.getInFlight());
+            assertEquals(0, limiter.getRejected());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static N8NConfigurationProperties properties(int initialLimit, int minLimit, int maxLimit,
+                                                         int maxQueued, long queueTimeoutMillis) {
+        N8NConfigurationProperties properties = new N8NConfigurationProperties();
+        N8NConfigurationProperties.Limiter limiter = properties.getLimiter();
+        limiter.setInitialLimit(initialLimit);
+        limiter.setMinLimit(minLimit);
+        limiter.setMaxLimit(maxLimit);
+        limiter.setMaxQueued(maxQueued);
+        limiter.setQueueTimeoutMillis(queueTimeoutMillis);
+        limiter.setLatencyThresholdMillis(30_000);
+        limiter.setBackoffRatio(0.9);
+        return properties;
+    }
+}
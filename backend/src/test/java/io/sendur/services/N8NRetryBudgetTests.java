@@ -0,0 +1,74 @@
+package io.sendur.services;
+
+import io.sendur.configurations.N8NConfigurationProperties;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class N8NRetryBudgetTests {
+
+    @Test
+    void stopsAtMaxAttempts() {
+        N8NRetryBudget budget = new N8NRetryBudget(properties(3, 10, 0.2));
+
+        assertTrue(budget.tryRetry(1));
+        assertTrue(budget.tryRetry(2));
+        assertFalse(budget.tryRetry(3));
+
+        assertEquals(2, budget.getRetries());
+        assertEquals(8, budget.getBalance());
+    }
+
+    @Test
+    void stopsWhenBalanceIsEmpty() {
+        N8NRetryBudget budget = new N8NRetryBudget(properties(100, 2, 0.5));
+
+        assertTrue(budget.tryRetry(1));
+        assertTrue(budget.tryRetry(1));
+        assertFalse(budget.tryRetry(1));
+
+        budget.onSuccess();
+        assertFalse(budget.tryRetry(1));
+        budget.onSuccess();
+        assertTrue(budget.tryRetry(1));
+        assertEquals(3, budget.getRetries());
+    }
+
+    @Test
+    void successesRefillUpToMaxBudget() {
+        N8NRetryBudget budget = new N8NRetryBudget(properties(3, 2, 0.5));
+
+        for (int i = 0; i < 10; i++) {
+            budget.onSuccess();
+        }
+
+        assertEquals(2, budget.getBalance());
+    }
+
+    @Test
+    void backoffStaysWithinJitteredCeiling() {
+        N8NConfigurationProperties properties = properties(100, 10, 0.2);
+        properties.getRetry().setBaseDelayMillis(100);
+        properties.getRetry().setMaxDelayMillis(1_000);
+        N8NRetryBudget budget = new N8NRetryBudget(properties);
+
+        for (int attempt = 1; attempt <= 40; attempt++) {
+            long ceiling = Math.min(1_000, 100L * (1L << Math.min(attempt - 1, 20)));
+            long max = 0;
+            for (int i = 0; i < 1_000; i++) {
+                long delay = budget.backoffMillis(attempt);
+                assertTrue(delay >= 0 && delay <= ceiling, () -> "delay out of [0, " + ceiling + "]: " + delay);
+                max = Math.max(max, delay);
+            }
+            assertTrue(max > ceiling / 2, "delays should spread across the whole range");
+        }
+    }
+
+    private static N8NConfigurationProperties properties(int maxAttempts, int maxBudget, double budgetRatio) {
+        N8NConfigurationProperties properties = new N8NConfigurationProperties();
+        properties.getRetry().setMaxAttempts(maxAttempts);
+        properties.getRetry().setMaxBudget(maxBudget);
+        properties.getRetry().setBudgetRatio(budgetRatio);
+        return properties;
+    }
+}
@@ -0,0 +1,186 @@
+package io.sendur.services;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.observation.ObservationRegistry;
+import io.sendur.configurations.N8NConfigurationProperties;
+import io.sendur.models.ApprovedLeadsWebhookResult;
+import io.sendur.models.Lead;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+/**
+ * Checks which failed webhook calls are retried, against a stand-in n8n on localhost.
+ */
+class N8NServiceTests {
+
+    private static final String WEBHOOK_PATH = "/webhook/send-approved-emails";
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final AtomicInteger received = new AtomicInteger();
+    private volatile int responseStatus = 200;
+    private volatile long responseDelayMillis;
+
+    private HttpServer n8n;
+    private LeadService leadService;
+    private N8NConfigurationProperties properties;
+    private N8NConcurrencyLimiter limiter;
+    private N8NRetryBudget retryBudget;
+    private N8NService n8NService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        n8n = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        n8n.setExecutor(Executors.newCachedThreadPool());
+        n8n.createContext(WEBHOOK_PATH, exchange -> {
+            received.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            sleep(responseDelayMillis);
+            byte[] body = "[{\"messageId\": \"message-1\"}]".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(responseStatus, body.length);
+            try (OutputStream outputStream = exchange.getResponseBody()) {
+                outputStream.write(body);
+            }
+        });
+        n8n.start();
+
+        properties = new N8NConfigurationProperties();
+        properties.setHost("localhost");
+        properties.setPort(n8n.getAddress().getPort());
+        properties.setApprovedEmailsWebhook(webhook(n8n.getAddress().getPort()));
+        properties.setTimeout(1);
+        properties.getLimiter().setInitialLimit(1);
+        properties.getLimiter().setMaxQueued(0);
+        properties.getRetry().setMaxAttempts(MAX_ATTEMPTS);
+        properties.getRetry().setBaseDelayMillis(1);
+        properties.getRetry().setMaxDelayMillis(1);
+        leadService = mock(LeadService.class);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (n8NService != null) {
+            n8NService.close();
+        }
+        n8n.stop(0);
+    }
+
+    @Test
+    void successIsSentOnceAndSaved() {
+        ApprovedLeadsWebhookResult result = send();
+
+        assertEquals(200, result.statusCode());
+        assertEquals("message-1", result.webhookMessageIds().get(0).getMessageId());
+        assertEquals(1, received.get());
+        verify(leadService).saveContactedLeads(anyList());
+    }
+
+    @Test
+    void limiterRejectionIsNotRetried() throws InterruptedException {
+        startService();
+        assertTrue(limiter.acquire());
+
+        ApprovedLeadsWebhookResult result = send();
+
+        assertEquals(429, result.statusCode());
+        assertEquals(0, retryBudget.getRetries());
+        assertEquals(1, limiter.getRejected());
+        assertEquals(0, received.get());
+    }
+
+    @Test
+    void failedSocketProbeIsRetried() throws IOException {
+        properties.setPort(closedPort());
+
+        ApprovedLeadsWebhookResult result = send();
+
+        assertEquals(503, result.statusCode());
+        assertEquals(MAX_ATTEMPTS - 1, retryBudget.getRetries());
+        assertEquals(0, received.get());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void connectFailureIsRetried() throws IOException {
+        properties.setApprovedEmailsWebhook(webhook(closedPort()));
+
+        ApprovedLeadsWebhookResult result = send();
+
+        assertEquals(503, result.statusCode());
+        assertEquals(MAX_ATTEMPTS - 1, retryBudget.getRetries());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void serverErrorIsNotRetried() {
+        responseStatus = 500;
+
+        ApprovedLeadsWebhookResult result = send();
+
+        assertEquals(500, result.statusCode());
+        assertEquals(1, received.get());
+        assertEquals(0, retryBudget.getRetries());
+        verify(leadService, never()).saveContactedLeads(anyList());
+    }
+
+    @Test
+    void responseTimeoutIsNotRetried() {
+        responseDelayMillis = 2_000;
+
+        ApprovedLeadsWebhookResult result = send();
+
+        assertEquals(504, result.statusCode());
+        assertEquals(1, received.get());
+        assertEquals(0, retryBudget.getRetries());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    private ApprovedLeadsWebhookResult send() {
+        if (n8NService == null) {
+            startService();
+        }
+        return n8NService.sendApprovedEmailsToLeads(List.of(new Lead.Builder()
+                .businessName("Neighborhood Painting")
+                .email("hello@neighborhoodpainting.com")
+                .build()));
+    }
+
+    private void startService() {
+        limiter = new N8NConcurrencyLimiter(properties);
+        retryBudget = new N8NRetryBudget(properties);
+        n8NService = new N8NService(leadService, properties, limiter, retryBudget, ObservationRegistry.NOOP);
+    }
+
+    private static String webhook(int port) {
+        return "http://localhost:" + port + WEBHOOK_PATH;
+    }
+
+    private static int closedPort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}